@@ -0,0 +1,262 @@
+import java.util.Arrays;
+import java.util.Random;
+
+import benchmarks.Workload;
+
+// The operations the JMH benchmarks in the benchmarks package measure, on
+// one position: either a board file from testInput, or a generated huge
+// one with pieces on a random 60% of the spaces, the players taking turns.
+// See benchmarks.Workload for why this lives in the default package.
+public class BenchmarkWorkload implements Workload
+{
+	private static final String BOARD_FILE_PREFIX = "testInput/board-";
+	private static final String[] BOARD_FILES = {
+		"testInput/board-11x11-29.txt",
+		"testInput/board-100x100-9319.txt",
+		"testInput/board-200x200-39781.txt",
+	};
+
+	private static final double GENERATED_BOARD_FILL = 0.6;
+
+	private final int rows;
+	private final int columns;
+
+	// The pieces of the position, in order, as index * 4 + player
+	private final int[] moves;
+	private final Board loaded;
+
+	// Worst-case trees, and the deepest site in them
+	private final int sites;
+	private final WeightedQuickUnionUFCloneable cloneable;
+	private final UndoableUnionFind undoable;
+	private final int deepest;
+
+	// Uses the testInput board file of the specified size, e.g. "11x11"
+	public BenchmarkWorkload(String size)
+	{
+		this(readBoardFile(boardFileOf(size)));
+	}
+
+	// Uses a generated rows x rows position
+	public BenchmarkWorkload(int rows)
+	{
+		this(generatePosition(rows));
+	}
+
+	// Uses the specified position: rows, columns, and then each piece in
+	// order, as index * 4 + player
+	private BenchmarkWorkload(int[] position)
+	{
+		rows = position[0];
+		columns = position[1];
+		moves = Arrays.copyOfRange(position, 2, position.length);
+		loaded = new Board(rows, columns);
+		for (int move : moves)
+		{
+			loaded.setPlayer(move >> 2, move & 3);
+		}
+
+		// Without path compression the worst case is a tree of height
+		// log N, built by always uniting two trees of equal size.  The
+		// unions stay on the UndoableUnionFind's trail, so its finds never
+		// shorten the paths, just as during a search.
+		sites = rows * columns + 4;
+		cloneable = new WeightedQuickUnionUFCloneable(sites);
+		undoable = new UndoableUnionFind(sites);
+		for (int step = 1; step < sites; step *= 2)
+		{
+			for (int i = 0; i + step < sites; i += 2 * step)
+			{
+				cloneable.union(i + step, i);
+				undoable.union(i + step, i);
+			}
+		}
+		deepest = deepestSite(sites);
+	}
+
+	@Override
+	public Object placePieces()
+	{
+		Board board = new Board(rows, columns);
+		for (int move : moves)
+		{
+			board.setPlayer(move >> 2, move & 3);
+		}
+		return board;
+	}
+
+	@Override
+	public int getCurrentWinner()
+	{
+		return loaded.getCurrentWinner();
+	}
+
+	@Override
+	public Object copyBoard()
+	{
+		return new Board(loaded);
+	}
+
+	@Override
+	public int findDeepestCloneable()
+	{
+		return cloneable.find(deepest);
+	}
+
+	@Override
+	public int findDeepestUndoable()
+	{
+		return undoable.find(deepest);
+	}
+
+	@Override
+	public Object unionWorstCaseCloneable()
+	{
+		WeightedQuickUnionUFCloneable uf = new WeightedQuickUnionUFCloneable(sites);
+		for (int step = 1; step < sites; step *= 2)
+		{
+			for (int i = 0; i + step < sites; i += 2 * step)
+			{
+				uf.union(i + step, i);
+			}
+		}
+		return uf;
+	}
+
+	@Override
+	public int unionAndUndo()
+	{
+		int mark = undoable.mark();
+		undoable.union(0, sites - 1);
+		undoable.union(1, sites - 2);
+		int count = undoable.count();
+		undoable.undo(mark);
+		return count;
+	}
+
+	@Override
+	public int playRandomGame()
+	{
+		return new Match(new Board(rows, columns), new PlayerRandom(), new PlayerRandom()).play();
+	}
+
+	private static String boardFileOf(String size)
+	{
+		for (String file : BOARD_FILES)
+		{
+			if (file.startsWith(BOARD_FILE_PREFIX + size + "-"))
+			{
+				return file;
+			}
+		}
+		throw new IllegalArgumentException("No testInput board file is " + size);
+	}
+
+	// Reads the position in a board file, keeping the order of its pieces,
+	// which BoardLoader does not
+	private static int[] readBoardFile(String file)
+	{
+		In in = new In(file);
+		int rows = in.readInt();
+		int columns = in.readInt();
+		int[] position = new int[2 + rows * columns];
+		position[0] = rows;
+		position[1] = columns;
+		int length = 2;
+		while (!in.isEmpty())
+		{
+			int row = in.readInt();
+			int col = in.readInt();
+			int player = in.readInt();
+			position[length++] = (row * columns + col) * 4 + player;
+		}
+		in.close();
+		return Arrays.copyOf(position, length);
+	}
+
+	// Returns a rows x rows position with pieces on a random
+	// GENERATED_BOARD_FILL of the spaces, in random order
+	private static int[] generatePosition(int rows)
+	{
+		int spaces = rows * rows;
+		int[] order = new int[spaces];
+		for (int i = 0; i < spaces; i++)
+		{
+			order[i] = i;
+		}
+		Random random = new Random(rows);
+		for (int i = spaces - 1; i > 0; i--)
+		{
+			int j = random.nextInt(i + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+		int[] position = new int[2 + (int) (spaces * GENERATED_BOARD_FILL)];
+		position[0] = rows;
+		position[1] = rows;
+		for (int i = 2; i < position.length; i++)
+		{
+			position[i] = order[i - 2] * 4 + (i % 2 == 0 ? Board.PLAYER_1 : Board.PLAYER_2);
+		}
+		return position;
+	}
+
+	// Returns the site that is furthest from its root after the unions
+	// made above.  Neither union-find exposes parents, so this replays the
+	// same weighted unions on plain arrays.
+	private static int deepestSite(int sites)
+	{
+		int[] parent = new int[sites];
+		int[] size = new int[sites];
+		for (int i = 0; i < sites; i++)
+		{
+			parent[i] = i;
+			size[i] = 1;
+		}
+		for (int step = 1; step < sites; step *= 2)
+		{
+			for (int i = 0; i + step < sites; i += 2 * step)
+			{
+				int p = root(parent, i + step);
+				int q = root(parent, i);
+				if (size[p] < size[q])
+				{
+					parent[p] = q;
+					size[q] += size[p];
+				}
+				else
+				{
+					parent[q] = p;
+					size[p] += size[q];
+				}
+			}
+		}
+
+		int deepest = 0;
+		int deepestDepth = 0;
+		for (int i = 0; i < sites; i++)
+		{
+			int depth = 0;
+			for (int site = i; parent[site] != site; site = parent[site])
+			{
+				depth++;
+			}
+			if (depth > deepestDepth)
+			{
+				deepestDepth = depth;
+				deepest = i;
+			}
+		}
+		return deepest;
+	}
+
+	private static int root(int[] parent, int site)
+	{
+		while (site != parent[site])
+		{
+			site = parent[site];
+		}
+		return site;
+	}
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Board's hot paths on the testInput positions: placing every piece of a
+// position on a new Board (with connection upkeep), checking the position
+// for a winner, and copying the Board that holds it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmark
+{
+	@Param({"11x11", "100x100", "200x200"})
+	public String size;
+
+	private Workload workload;
+
+	@Setup
+	public void setUp()
+	{
+		workload = Workload.Factory.forBoardFile(size);
+	}
+
+	@Benchmark
+	public Object setPlayer()
+	{
+		return workload.placePieces();
+	}
+
+	@Benchmark
+	public int getCurrentWinner()
+	{
+		return workload.getCurrentWinner();
+	}
+
+	@Benchmark
+	public Object copy()
+	{
+		return workload.copyBoard();
+	}
+}
@@ -0,0 +1,43 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A whole game between two PlayerRandoms, through Match, on an empty Board
+// of each size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameBenchmark
+{
+	@Param({"11x11", "100x100", "200x200"})
+	public String size;
+
+	private Workload workload;
+
+	@Setup
+	public void setUp()
+	{
+		workload = Workload.Factory.forBoardFile(size);
+	}
+
+	@Benchmark
+	public int randomGame()
+	{
+		return workload.playRandomGame();
+	}
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Placing pieces and copying Boards on huge generated positions, with
+// pieces on a random 60% of the spaces, to show how they scale
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class LargeBoardBenchmark
+{
+	@Param({"1000x1000", "2000x2000"})
+	public String size;
+
+	private Workload workload;
+
+	@Setup
+	public void setUp()
+	{
+		workload = Workload.Factory.forGeneratedBoard(size);
+	}
+
+	@Benchmark
+	public Object setPlayer()
+	{
+		return workload.placePieces();
+	}
+
+	@Benchmark
+	public Object copy()
+	{
+		return workload.copyBoard();
+	}
+}
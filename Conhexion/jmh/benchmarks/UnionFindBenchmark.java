@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The union-find structures on their worst-case shape, a tree of height
+// log N, with as many sites as the Board of each size: finding the root of
+// the deepest site, building the tree from scratch with
+// WeightedQuickUnionUFCloneable, and a union taken back with
+// UndoableUnionFind as a search does
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class UnionFindBenchmark
+{
+	@Param({"11x11", "100x100", "200x200"})
+	public String size;
+
+	private Workload workload;
+
+	@Setup
+	public void setUp()
+	{
+		workload = Workload.Factory.forBoardFile(size);
+	}
+
+	@Benchmark
+	public int weightedQuickUnionFind()
+	{
+		return workload.findDeepestCloneable();
+	}
+
+	@Benchmark
+	public Object weightedQuickUnionUnion()
+	{
+		return workload.unionWorstCaseCloneable();
+	}
+
+	@Benchmark
+	public int undoableFind()
+	{
+		return workload.findDeepestUndoable();
+	}
+
+	@Benchmark
+	public int undoableUnionAndUndo()
+	{
+		return workload.unionAndUndo();
+	}
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+// The operations the benchmarks measure, on one position.  JMH refuses
+// benchmarks in the default package, where all of Conhexion lives, and a
+// class in a named package cannot refer to one in the default package, so
+// the benchmarks reach Conhexion through this interface.  It is implemented
+// by BenchmarkWorkload in the default package, which is loaded by name.
+// Each benchmark only ever sees that one implementation, so the JIT
+// inlines the calls as if they were direct.
+public interface Workload
+{
+	// Places every piece of the position on a new Board, in order, and
+	// returns the Board
+	Object placePieces();
+
+	// Returns the winner of the position
+	int getCurrentWinner();
+
+	// Returns a copy of the Board holding the position
+	Object copyBoard();
+
+	// Finds the root of the deepest site of a WeightedQuickUnionUFCloneable
+	// (or UndoableUnionFind) with as many sites as the position's Board,
+	// made as deep as weighted union allows: log N
+	int findDeepestCloneable();
+	int findDeepestUndoable();
+
+	// Builds such a worst-case tree from scratch with
+	// WeightedQuickUnionUFCloneable, and returns it
+	Object unionWorstCaseCloneable();
+
+	// Makes two unions on the deep UndoableUnionFind and takes them back,
+	// returning the number of components in between
+	int unionAndUndo();
+
+	// Plays a game between two PlayerRandoms on an empty Board the size of
+	// the position, and returns the winner
+	int playRandomGame();
+
+	// Creates Workloads, through reflection
+	final class Factory
+	{
+		private Factory()
+		{
+		}
+
+		// Returns a Workload for the testInput board file of the specified
+		// size, e.g. "11x11"
+		public static Workload forBoardFile(String size)
+		{
+			return create(String.class, size);
+		}
+
+		// Returns a Workload for a position of the specified size with
+		// pieces on a random 60% of the spaces
+		public static Workload forGeneratedBoard(String size)
+		{
+			return create(int.class, Integer.parseInt(size.substring(0, size.indexOf('x'))));
+		}
+
+		private static Workload create(Class<?> parameter, Object argument)
+		{
+			try
+			{
+				return (Workload) Class.forName("BenchmarkWorkload").getConstructor(parameter).newInstance(argument);
+			}
+			catch (ReflectiveOperationException e)
+			{
+				throw new IllegalStateException("Cannot create a BenchmarkWorkload for " + argument, e);
+			}
+		}
+	}
+}
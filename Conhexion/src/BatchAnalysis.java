@@ -0,0 +1,386 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Analyzes every board file in a directory: who is winning each position,
+// the chance of winning with a move in each empty space, and the best move.
+//
+// Positions are searched in parallel on a ForkJoinPool, one position per
+// worker at a time, each by an MctsEngine that runs on the worker itself,
+// so there is exactly one search per core and no threads besides the
+// pool's.  Every position gets the same budget of playouts (and of time,
+// if one is given).  A space's win probability is the share of the
+// playouts through a move there that the player to move won; spaces the
+// search left out (see InferiorCells) have none.
+//
+// The report has a line for each position, followed by its map: one line
+// per row, each row shifted half a space further right than the last, as
+// on the board, with R and B for the pieces of players 1 (red) and 2
+// (blue), the win probability in percent for the moves searched, and "."
+// for the rest.  With -heatmap, each map is also drawn over its board by
+// GameManager and saved as a .png next to the report.
+//
+// Usage: java BatchAnalysis <board directory> [report file] [playouts] [milliseconds] [threads] [-heatmap]
+//
+// The player to move in each position is the one with fewer pieces
+// (player 1 if they have the same number).
+public class BatchAnalysis
+{
+	// What was found out about one position
+	public static class Result
+	{
+		private final String fileName;
+		private final Board board;
+		private final int player;
+		private final double[] winProbabilities;
+		private final int bestMove;
+		private final long playouts;
+		private final long nanos;
+
+		private Result(String fileName, Board board, int player, double[] winProbabilities, int bestMove,
+				long playouts, long nanos)
+		{
+			this.fileName = fileName;
+			this.board = board;
+			this.player = player;
+			this.winProbabilities = winProbabilities;
+			this.bestMove = bestMove;
+			this.playouts = playouts;
+			this.nanos = nanos;
+		}
+
+		// Returns the name of the board file
+		public String getFileName()
+		{
+			return fileName;
+		}
+
+		// Returns the position analyzed
+		public Board getBoard()
+		{
+			return board;
+		}
+
+		// Returns the player to move
+		public int getPlayer()
+		{
+			return player;
+		}
+
+		// Returns the chance that the player to move wins by moving in each
+		// space, indexed like the Board (NaN where there is no move, or the
+		// move was not searched), or null if the game was already over
+		public double[] getWinProbabilities()
+		{
+			return winProbabilities;
+		}
+
+		// Returns the board index of the best move, or -1 if the game was
+		// already over
+		public int getBestMove()
+		{
+			return bestMove;
+		}
+
+		// Returns the chance that the player to move wins with the best move
+		public double getWinProbability()
+		{
+			return bestMove < 0 ? Double.NaN : winProbabilities[bestMove];
+		}
+
+		// Returns the number of playouts the position was searched with
+		public long getPlayouts()
+		{
+			return playouts;
+		}
+
+		// Returns how long the position took to analyze, in nanoseconds
+		public long getNanos()
+		{
+			return nanos;
+		}
+	}
+
+	private final long playoutsPerPosition;
+	private final long nanosPerPosition;
+	private final int threads;
+
+	private final AtomicLong totalPlayouts = new AtomicLong();
+	private long lastElapsedNanos;
+
+	// Constructs an analysis that searches each position with the specified
+	// number of playouts, for at most the specified time (0 for no limit),
+	// on the specified number of threads
+	public BatchAnalysis(long playoutsPerPosition, long nanosPerPosition, int threads)
+	{
+		this.playoutsPerPosition = playoutsPerPosition;
+		this.nanosPerPosition = nanosPerPosition;
+		this.threads = threads;
+	}
+
+	// Analyzes the positions in the specified board files, in parallel, and
+	// returns the results in the same order.  A file that cannot be read
+	// stops the whole analysis.
+	public Result[] analyze(final String[] fileNames)
+	{
+		final Result[] results = new Result[fileNames.length];
+		totalPlayouts.set(0);
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try
+		{
+			pool.invoke(new AnalyzeRange(fileNames, results, 0, fileNames.length));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		lastElapsedNanos = System.nanoTime() - start;
+		return results;
+	}
+
+	// Returns how long the last analyze took, in nanoseconds
+	public long getLastElapsedNanos()
+	{
+		return lastElapsedNanos;
+	}
+
+	// Returns the number of playouts the last analyze ran, over all positions
+	public long getLastPlayouts()
+	{
+		return totalPlayouts.get();
+	}
+
+	// Analyzes the positions from start (inclusive) to end (exclusive), by
+	// splitting the range in half until each task has one position
+	private class AnalyzeRange extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String[] fileNames;
+		private final Result[] results;
+		private final int start;
+		private final int end;
+
+		AnalyzeRange(String[] fileNames, Result[] results, int start, int end)
+		{
+			this.fileNames = fileNames;
+			this.results = results;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (end - start == 1)
+			{
+				results[start] = analyzePosition(fileNames[start]);
+			}
+			else if (end - start > 1)
+			{
+				int middle = (start + end) >>> 1;
+				invokeAll(new AnalyzeRange(fileNames, results, start, middle),
+						new AnalyzeRange(fileNames, results, middle, end));
+			}
+		}
+	}
+
+	private Result analyzePosition(String fileName)
+	{
+		long start = System.nanoTime();
+		Board board = BoardLoader.load(fileName);
+		int player = BoardLoader.playerToMove(board);
+		if (board.getCurrentWinner() != Board.PLAYER_NONE)
+		{
+			return new Result(fileName, board, player, null, -1, 0, System.nanoTime() - start);
+		}
+
+		MctsEngine engine = new MctsEngine(playoutsPerPosition);
+		long deadline = nanosPerPosition > 0 ? start + nanosPerPosition : Long.MAX_VALUE;
+		int bestMove = engine.search(board, player, deadline);
+		totalPlayouts.addAndGet(engine.getLastPlayouts());
+
+		double[] winProbabilities = new double[board.getRows() * board.getColumns()];
+		Arrays.fill(winProbabilities, Double.NaN);
+		MctsNode root = engine.getRoot();
+		for (int move = 0; move < root.getMoveCount(); move++)
+		{
+			int visits = root.getVisits(move);
+			if (visits > 0)
+			{
+				winProbabilities[root.getMove(move)] = (double) root.getWins(move) / visits;
+			}
+		}
+		return new Result(fileName, board, player, winProbabilities, bestMove, engine.getLastPlayouts(),
+				System.nanoTime() - start);
+	}
+
+	// Writes the report for the specified results, as described at the top
+	public static void writeReport(Result[] results, PrintWriter out)
+	{
+		for (Result result : results)
+		{
+			Board board = result.getBoard();
+			int columns = board.getColumns();
+			if (result.getBestMove() < 0)
+			{
+				out.printf("%s: already won by player %d%n%n", result.getFileName(), board.getCurrentWinner());
+				continue;
+			}
+
+			out.printf("%s: player %d to move, wins %.1f%% with row %d, column %d (%d playouts, %.1f ms)%n",
+					result.getFileName(), result.getPlayer(), result.getWinProbability() * 100,
+					result.getBestMove() / columns, result.getBestMove() % columns, result.getPlayouts(),
+					result.getNanos() / 1e6);
+
+			double[] winProbabilities = result.getWinProbabilities();
+			StringBuilder line = new StringBuilder();
+			for (int row = 0; row < board.getRows(); row++)
+			{
+				line.setLength(0);
+				for (int i = 0; i < row; i++)
+				{
+					line.append("  ");
+				}
+				for (int column = 0; column < columns; column++)
+				{
+					int index = row * columns + column;
+					int occupant = board.getPlayer(index);
+					if (occupant != Board.PLAYER_NONE)
+					{
+						line.append(occupant == Board.PLAYER_1 ? "   R" : "   B");
+					}
+					else if (Double.isNaN(winProbabilities[index]))
+					{
+						line.append("   .");
+					}
+					else
+					{
+						line.append(String.format("%4d", Math.round(winProbabilities[index] * 100)));
+					}
+				}
+				out.println(line);
+			}
+			out.println();
+		}
+	}
+
+	// Draws the heatmap of each result over its board and saves it as
+	// <board file name>.png in the specified directory, one at a time in
+	// the same window, which is closed afterwards.  One GameManager draws
+	// every position until one of a different size comes along.
+	public static void saveHeatmaps(Result[] results, File directory)
+	{
+		GameManager gm = null;
+		int rows = 0;
+		int columns = 0;
+		try
+		{
+			for (Result result : results)
+			{
+				if (result.getBestMove() < 0)
+				{
+					continue;
+				}
+
+				String name = new File(result.getFileName()).getName();
+				if (name.endsWith(".txt"))
+				{
+					name = name.substring(0, name.length() - ".txt".length());
+				}
+
+				Board board = result.getBoard();
+				if (gm == null || board.getRows() != rows || board.getColumns() != columns)
+				{
+					if (gm != null)
+					{
+						gm.close();
+					}
+					gm = new GameManager(new Board(board));
+					gm.placeInitialPieces();
+					rows = board.getRows();
+					columns = board.getColumns();
+				}
+				else
+				{
+					gm.showPosition(board);
+				}
+				gm.showHeatmap(result.getWinProbabilities(), result.getPlayer());
+				gm.saveImage(new File(directory, name + ".png").getPath());
+			}
+		}
+		finally
+		{
+			if (gm != null)
+			{
+				gm.closeWindow();
+			}
+		}
+	}
+
+	public static void main(String[] args) throws FileNotFoundException
+	{
+		List<String> arguments = new ArrayList<String>(Arrays.asList(args));
+		boolean heatmap = arguments.remove("-heatmap");
+		if (arguments.size() < 1)
+		{
+			System.out.println("Usage: java BatchAnalysis <board directory> [report file] [playouts] [milliseconds] [threads] [-heatmap]");
+			return;
+		}
+
+		File directory = new File(arguments.get(0));
+		String reportFile = arguments.size() > 1 ? arguments.get(1) : "analysis.txt";
+		long playouts = arguments.size() > 2 ? Long.parseLong(arguments.get(2)) : 100000;
+		long millis = arguments.size() > 3 ? Long.parseLong(arguments.get(3)) : 0;
+		int threads = arguments.size() > 4 ? Integer.parseInt(arguments.get(4)) : Runtime.getRuntime().availableProcessors();
+
+		File[] files = directory.listFiles();
+		if (files == null)
+		{
+			System.out.println(directory + " is not a directory");
+			return;
+		}
+		List<String> fileNames = new ArrayList<String>();
+		for (File file : files)
+		{
+			if (file.isFile() && file.getName().endsWith(".txt"))
+			{
+				fileNames.add(file.getPath());
+			}
+		}
+		String[] sorted = fileNames.toArray(new String[fileNames.size()]);
+		Arrays.sort(sorted);
+
+		BatchAnalysis analysis = new BatchAnalysis(playouts, millis * 1000000, threads);
+		Result[] results = analysis.analyze(sorted);
+
+		PrintWriter out = new PrintWriter(reportFile);
+		try
+		{
+			writeReport(results, out);
+		}
+		finally
+		{
+			out.close();
+		}
+
+		double seconds = analysis.getLastElapsedNanos() / 1e9;
+		System.out.printf("Analyzed %d positions in %.2f s on %d thread(s): %.1f positions/sec, %.0f playouts/sec; report in %s%n",
+				results.length, seconds, threads, results.length / seconds, analysis.getLastPlayouts() / seconds,
+				reportFile);
+
+		if (heatmap)
+		{
+			File reportDirectory = new File(reportFile).getAbsoluteFile().getParentFile();
+			saveHeatmaps(results, reportDirectory);
+			System.out.println("Saved heatmaps to " + reportDirectory);
+		}
+	}
+}
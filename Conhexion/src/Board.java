@@ -1,72 +1,517 @@
-import java.util.Arrays;
-
-public class Board {
-	
-	public static final int PLAYER_NONE = 0;
-	public static final int PLAYER_1 = 1;
-	public static final int PLAYER_2 = 2;
-	private int[][][] boardy;
-
-	// Constructs a new board with the specified number of rows and columns
-	public Board(int rows, int columns) {
-		
-		boardy = new int[rows][columns][1];
-		
-		for (int x = 0; x < rows; x++) {
-			for (int y = 0; y < rows; y++) {
-				boardy[x][y][0] = 0;
-			}
-		}
-		
-		
-	}
-
-	// Constructs a new Board that clones the state of the specified Board
-	public Board(Board original) {
-		throw new UnsupportedOperationException();
-	}
-
-	// Returns the total number of rows in this Board
-	public int getRows() {
-		return (boardy.length);
-	}
-
-	// Returns the total number of columns in this Board
-	public int getColumns() {
-		return (boardy[0].length);
-	}
-
-	// Returns one of the three "player" ints defined on this class
-	// representing which player, if any, occupies the specified
-	// location on the board
-	public int getPlayer(Location location) {
-		return (boardy[location.getRow()][location.getColumn()][0]);
-	}
-
-	// Places a game piece from the specified player (represented by
-	// one of the three "player" ints defined on this class) into the
-	// specified location on the board
-	public void setPlayer(Location location, int player) {
-		boardy[location.getRow()][location.getColumn()][0] = player;
-	}
-
-	// Although the GameManager does not need to call this method, the
-	// tests will call it to help verify that you're using the
-	// union-find data structure correctly
-	public boolean isConnected(Location location1, Location location2) {
-		throw new UnsupportedOperationException();
-	}
-
-	// Returns whether the specified location on the board contains
-	// a game piece that is connected to one of the corresponding
-	// player's sides.
-	public int getSideConnection(Location location) {
-		throw new UnsupportedOperationException();
-	}
-
-	// Returns one of the three "player" ints indicating who is the winner
-	// of the current Board.  PLAYER_NONE indicates no one has won yet.
-	public int getCurrentWinner() {
-		throw new UnsupportedOperationException();
-	}
-}
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+public class Board {
+
+	public static final int PLAYER_NONE = 0;
+	public static final int PLAYER_1 = 1;
+	public static final int PLAYER_2 = 2;
+
+	// One byte per space holding the "player" int of its occupant, stored
+	// row by row, so space (row, column) lives at index row * columns + column
+	private byte[] boardy;
+	private final int rows;
+	private final int columns;
+
+	// Union-find over every space plus four virtual nodes, one per edge of
+	// the board.  Player 1 owns the top and bottom edges, player 2 owns the
+	// left and right edges.  Spaces are only ever unioned with neighboring
+	// spaces of the same player (or with that player's edges), so checking
+	// for a winner is just a matter of asking whether two edges are connected.
+	private UndoableUnionFind connections;
+	private final int top;
+	private final int bottom;
+	private final int left;
+	private final int right;
+
+	// Spaces filled by makeMove that undoMove has not taken back yet, most
+	// recent last, along with the union-find trail position from before
+	// each of them was placed
+	private int[] madeMoves;
+	private int[] madeMarks;
+	private int madeCount;
+
+	// Zobrist hash of the pieces on this Board: the XOR of the keys of
+	// every (space, player) pair on it, kept up to date as pieces are
+	// placed and taken back
+	private long hash;
+
+	// Number of times a piece has been placed on this Board.  Snapshots
+	// compare it against the value they were taken at to notice that the
+	// Board they share storage with has moved on.
+	private int modCount;
+
+	// Non-null while this Board is a snapshot that still shares its storage
+	// with the Board it was taken from (see snapshot())
+	private Board source;
+	private int sourceModCount;
+
+	// What getSideConnections last returned, and the modCount it was
+	// worked out at, so that it is only worked out again once a piece has
+	// been placed or taken back
+	private byte[] sideConnections;
+	private int sideConnectionsModCount;
+
+	// Row and column offsets of the six neighbors of a space
+	private static final int[] NEIGHBOR_ROW_OFFSETS = {0, 0, -1, -1, 1, 1};
+	private static final int[] NEIGHBOR_COLUMN_OFFSETS = {-1, 1, 0, 1, 0, -1};
+
+	// Constructs a new board with the specified number of rows and columns
+	public Board(int rows, int columns) {
+
+		this.rows = rows;
+		this.columns = columns;
+		boardy = new byte[rows * columns];
+
+		top = rows * columns;
+		bottom = top + 1;
+		left = top + 2;
+		right = top + 3;
+		connections = new UndoableUnionFind(top + 4);
+		madeMoves = new int[0];
+		madeMarks = new int[0];
+	}
+
+	// Constructs a new Board that clones the state of the specified Board
+	public Board(Board original) {
+		original.checkSource();
+		rows = original.rows;
+		columns = original.columns;
+		boardy = Arrays.copyOf(original.boardy, original.boardy.length);
+
+		top = original.top;
+		bottom = original.bottom;
+		left = original.left;
+		right = original.right;
+		connections = new UndoableUnionFind(original.connections);
+		madeMoves = Arrays.copyOf(original.madeMoves, original.madeMoves.length);
+		madeMarks = Arrays.copyOf(original.madeMarks, original.madeMarks.length);
+		madeCount = original.madeCount;
+		hash = original.hash;
+		if (Metrics.ENABLED) {
+			Metrics.recordBoardClone(copiedBytes());
+		}
+	}
+
+	// Constructs a snapshot that shares the storage of the specified Board
+	private Board(Board original, int originalModCount) {
+		rows = original.rows;
+		columns = original.columns;
+		boardy = original.boardy;
+
+		top = original.top;
+		bottom = original.bottom;
+		left = original.left;
+		right = original.right;
+		connections = original.connections;
+		madeMoves = original.madeMoves;
+		madeMarks = original.madeMarks;
+		madeCount = original.madeCount;
+		hash = original.hash;
+
+		source = original;
+		sourceModCount = originalModCount;
+	}
+
+	// Returns a copy-on-write snapshot of this Board.  Taking a snapshot is
+	// constant time: the snapshot reads straight from this Board's storage,
+	// and only makes a private copy of it the first time a piece is placed
+	// on the snapshot itself, so this Board can never be changed through it.
+	// A snapshot is only valid until a piece is next placed on this Board;
+	// reading it after that throws a ConcurrentModificationException.  Use
+	// the copy constructor to keep a snapshot around for longer.
+	public Board snapshot() {
+		if (source != null) {
+			checkSource();
+			return (new Board(source, sourceModCount));
+		}
+		return (new Board(this, modCount));
+	}
+
+	// Returns the total number of rows in this Board
+	public int getRows() {
+		return (rows);
+	}
+
+	// Returns the total number of columns in this Board
+	public int getColumns() {
+		return (columns);
+	}
+
+	// Returns the index of the specified space, for use with the
+	// index-based getPlayer and setPlayer methods
+	public int indexOf(int row, int column) {
+		return (row * columns + column);
+	}
+
+	// Returns the index of the space at the specified Location, throwing
+	// if the Location is off the board.  Rows are stored one after another,
+	// so without the check a column past either end of a row would wrap
+	// around to a space on the next or previous row.
+	private int indexOf(Location location) {
+		int row = location.getRow();
+		int column = location.getColumn();
+		if (row < 0 || row >= rows || column < 0 || column >= columns) {
+			throw new IndexOutOfBoundsException("Location (" + row + ", " + column +
+					") is not on a " + rows + "x" + columns + " board");
+		}
+		return (indexOf(row, column));
+	}
+
+	// Returns one of the three "player" ints defined on this class
+	// representing which player, if any, occupies the specified
+	// location on the board
+	public int getPlayer(Location location) {
+		checkSource();
+		return (boardy[indexOf(location)]);
+	}
+
+	// Same as getPlayer(Location), but takes the index of the space
+	// as returned by indexOf
+	public int getPlayer(int index) {
+		checkSource();
+		return (boardy[index]);
+	}
+
+	// Places a game piece from the specified player (represented by
+	// one of the three "player" ints defined on this class) into the
+	// specified location on the board
+	public void setPlayer(Location location, int player) {
+		setPlayer(indexOf(location), player);
+	}
+
+	// Same as setPlayer(Location, int), but takes the index of the space
+	// as returned by indexOf.  Not allowed while there are moves made by
+	// makeMove to take back: the piece's unions would go on the trail
+	// after theirs, and undoMove would take them back with the moves while
+	// leaving the piece on the board.
+	public void setPlayer(int index, int player) {
+		if (madeCount > 0) {
+			throw new IllegalStateException("Cannot set a space while there are " +
+					madeCount + " moves to undo");
+		}
+		place(index, player);
+	}
+
+	// Places the piece for setPlayer and makeMove
+	private void place(int index, int player) {
+		if (source != null) {
+			detach();
+		}
+		int previous = boardy[index];
+		if (previous != PLAYER_NONE) {
+			hash ^= getZobristKey(index, previous);
+		}
+		boardy[index] = (byte) player;
+		modCount++;
+
+		if (player == PLAYER_NONE) {
+			return;
+		}
+		hash ^= getZobristKey(index, player);
+
+		int row = index / columns;
+		int column = index - row * columns;
+
+		// Join the new piece to any edges it touches...
+		if (player == PLAYER_1) {
+			if (row == 0) {
+				connections.union(index, top);
+			}
+			if (row == rows - 1) {
+				connections.union(index, bottom);
+			}
+		}
+		else {
+			if (column == 0) {
+				connections.union(index, left);
+			}
+			if (column == columns - 1) {
+				connections.union(index, right);
+			}
+		}
+
+		// ...and to any neighboring pieces of the same player
+		for (int i = 0; i < NEIGHBOR_ROW_OFFSETS.length; i++) {
+			int neighborRow = row + NEIGHBOR_ROW_OFFSETS[i];
+			int neighborColumn = column + NEIGHBOR_COLUMN_OFFSETS[i];
+			if (neighborRow >= 0 && neighborRow < rows &&
+					neighborColumn >= 0 && neighborColumn < columns) {
+				int neighbor = indexOf(neighborRow, neighborColumn);
+				if (boardy[neighbor] == player) {
+					connections.union(index, neighbor);
+				}
+			}
+		}
+
+		// Pieces placed by setPlayer can never be undone, so there is no
+		// need to keep their unions on the trail
+		if (madeCount == 0) {
+			connections.clearTrail();
+		}
+	}
+
+	// Replaces every space on this Board with the "player" ints in the
+	// specified array, indexed like indexOf, and rebuilds all of the
+	// connections in a single pass over the board.  This is much faster than
+	// calling setPlayer for every piece when loading a large position.  Moves
+	// made by makeMove can no longer be undone afterwards.
+	public void setAllPlayers(byte[] players) {
+		if (players.length != rows * columns) {
+			throw new IllegalArgumentException("Expected " + rows * columns +
+					" spaces, not " + players.length);
+		}
+
+		// Start over on fresh storage, which also cuts this Board loose from
+		// its source if it is a snapshot
+		boardy = Arrays.copyOf(players, players.length);
+		connections = new UndoableUnionFind(top + 4);
+		madeCount = 0;
+		hash = 0;
+		source = null;
+		modCount++;
+
+		int index = 0;
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++, index++) {
+				int player = boardy[index];
+				if (player == PLAYER_NONE) {
+					continue;
+				}
+				if (player != PLAYER_1 && player != PLAYER_2) {
+					throw new IllegalArgumentException("Space " + index + " has unknown player " + player);
+				}
+				hash ^= getZobristKey(index, player);
+
+				if (player == PLAYER_1) {
+					if (row == 0) {
+						connections.union(index, top);
+					}
+					if (row == rows - 1) {
+						connections.union(index, bottom);
+					}
+				}
+				else {
+					if (column == 0) {
+						connections.union(index, left);
+					}
+					if (column == columns - 1) {
+						connections.union(index, right);
+					}
+				}
+
+				// Only look ahead (right, down, and down-left): the other three
+				// neighbors looked at this space when it was their turn
+				if (column + 1 < columns && boardy[index + 1] == player) {
+					connections.union(index, index + 1);
+				}
+				if (row + 1 < rows) {
+					if (boardy[index + columns] == player) {
+						connections.union(index, index + columns);
+					}
+					if (column > 0 && boardy[index + columns - 1] == player) {
+						connections.union(index, index + columns - 1);
+					}
+				}
+			}
+		}
+		connections.clearTrail();
+	}
+
+	// Places a game piece from the specified player into the specified
+	// empty space, like setPlayer, but remembers the move so that undoMove
+	// can take it back.  This lets a search try out moves on its own Board
+	// instead of copying the Board for every position it visits.
+	public void makeMove(int index, int player) {
+		if (source != null) {
+			detach();
+		}
+		if (madeCount == madeMoves.length) {
+			madeMoves = Arrays.copyOf(madeMoves, Math.max(16, madeCount * 2));
+			madeMarks = Arrays.copyOf(madeMarks, madeMoves.length);
+		}
+		madeMoves[madeCount] = index;
+		madeMarks[madeCount] = connections.mark();
+		madeCount++;
+		place(index, player);
+	}
+
+	// Takes back the most recent move placed by makeMove that has not
+	// been taken back yet, restoring the spaces and all of their
+	// connections to exactly how they were before that move
+	public void undoMove() {
+		if (madeCount == 0) {
+			throw new IllegalStateException("There is no move to undo");
+		}
+		if (source != null) {
+			detach();
+		}
+		madeCount--;
+		connections.undo(madeMarks[madeCount]);
+		int index = madeMoves[madeCount];
+		hash ^= getZobristKey(index, boardy[index]);
+		boardy[index] = PLAYER_NONE;
+		modCount++;
+	}
+
+	// Although the GameManager does not need to call this method, the
+	// tests will call it to help verify that you're using the
+	// union-find data structure correctly
+	public boolean isConnected(Location location1, Location location2) {
+		checkSource();
+		return (connections.connected(
+				indexOf(location1),
+				indexOf(location2)));
+	}
+
+	// Returns whether the specified location on the board contains
+	// a game piece that is connected to one of the corresponding
+	// player's sides.
+	public int getSideConnection(Location location) {
+		checkSource();
+		int player = getPlayer(location);
+		int site = indexOf(location);
+		if (player == PLAYER_1 &&
+				(connections.connected(site, top) || connections.connected(site, bottom))) {
+			return (PLAYER_1);
+		}
+		if (player == PLAYER_2 &&
+				(connections.connected(site, left) || connections.connected(site, right))) {
+			return (PLAYER_2);
+		}
+		return (PLAYER_NONE);
+	}
+
+	// Returns what getSideConnection would for every space at once, indexed
+	// like the spaces themselves.  The components of the four edges are
+	// found once, and then each piece's, so this costs one find per piece
+	// instead of a Location and up to four finds per space.  The array is
+	// kept and handed out again until the next piece is placed or taken
+	// back, and then filled in again, so callers must not modify it or
+	// hold on to it.
+	public byte[] getSideConnections() {
+		checkSource();
+		if (sideConnections != null && sideConnectionsModCount == modCount) {
+			return (sideConnections);
+		}
+		if (sideConnections == null) {
+			sideConnections = new byte[boardy.length];
+		}
+
+		int topRoot = connections.find(top);
+		int bottomRoot = connections.find(bottom);
+		int leftRoot = connections.find(left);
+		int rightRoot = connections.find(right);
+		for (int index = 0; index < boardy.length; index++) {
+			int player = boardy[index];
+			byte connection = PLAYER_NONE;
+			if (player == PLAYER_1) {
+				int root = connections.find(index);
+				if (root == topRoot || root == bottomRoot) {
+					connection = PLAYER_1;
+				}
+			} else if (player == PLAYER_2) {
+				int root = connections.find(index);
+				if (root == leftRoot || root == rightRoot) {
+					connection = PLAYER_2;
+				}
+			}
+			sideConnections[index] = connection;
+		}
+		sideConnectionsModCount = modCount;
+		return (sideConnections);
+	}
+
+	// Returns one of the three "player" ints indicating who is the winner
+	// of the current Board.  PLAYER_NONE indicates no one has won yet.
+	public int getCurrentWinner() {
+		checkSource();
+		if (connections.connected(top, bottom)) {
+			return (PLAYER_1);
+		}
+		if (connections.connected(left, right)) {
+			return (PLAYER_2);
+		}
+		return (PLAYER_NONE);
+	}
+
+	// Returns the 64-bit Zobrist hash of the pieces on this Board.  Boards
+	// with the same pieces have the same hash no matter in which order the
+	// pieces were placed, which makes it a good key for transposition tables.
+	public long getHash() {
+		checkSource();
+		return (hash);
+	}
+
+	// Returns the Zobrist key of the specified player occupying the
+	// specified space.  Keys are computed by mixing the two values rather
+	// than looked up in a table, so they cost no memory on huge boards and
+	// are the same in every run.
+	public static long getZobristKey(int index, int player) {
+		// splitmix64 finalizer
+		long key = (index * 2L + player) * 0x9E3779B97F4A7C15L;
+		key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+		key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+		return (key ^ (key >>> 31));
+	}
+
+	// Two Boards are equal if they are the same size and have the same
+	// pieces in the same spaces
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return (true);
+		}
+		if (!(other instanceof Board)) {
+			return (false);
+		}
+		Board board = (Board) other;
+		checkSource();
+		board.checkSource();
+		return (rows == board.rows && columns == board.columns &&
+				hash == board.hash && Arrays.equals(boardy, board.boardy));
+	}
+
+	@Override
+	public int hashCode() {
+		checkSource();
+		return ((int) (hash ^ (hash >>> 32)));
+	}
+
+	// Returns the union-find behind this Board, for tests that check its
+	// state directly
+	UndoableUnionFind getConnections() {
+		checkSource();
+		return (connections);
+	}
+
+	// Throws if this Board is a snapshot whose source Board has changed
+	// since the snapshot was taken
+	private void checkSource() {
+		if (source != null && source.modCount != sourceModCount) {
+			throw new ConcurrentModificationException(
+					"Board snapshot used after the Board it was taken from changed");
+		}
+	}
+
+	// Gives a snapshot its own copy of the storage it shares with its
+	// source Board, so that it can be modified independently
+	private void detach() {
+		checkSource();
+		boardy = Arrays.copyOf(boardy, boardy.length);
+		connections = new UndoableUnionFind(connections);
+		madeMoves = Arrays.copyOf(madeMoves, madeMoves.length);
+		madeMarks = Arrays.copyOf(madeMarks, madeMarks.length);
+		source = null;
+		if (Metrics.ENABLED) {
+			Metrics.recordBoardClone(copiedBytes());
+		}
+	}
+
+	// Returns roughly how many bytes copying this Board's storage takes:
+	// the spaces, the union-find chunks allocated so far, and the moves
+	// made so far
+	private long copiedBytes() {
+		return (boardy.length + connections.memoryBytes() + 4L * (madeMoves.length + madeMarks.length));
+	}
+}
@@ -0,0 +1,153 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Loads board files in the testInput format (a line with the number of
+// rows and columns, then one "row column player" line per piece) straight
+// into a Board, all at once.  The file is memory-mapped and its numbers are
+// parsed byte by byte into a plain array of spaces, which is then handed to
+// Board.setAllPlayers to build every connection in one pass.  Loading the
+// 40,000 pieces of board-200x200-39781.txt this way takes milliseconds.
+//
+// Usage: java BoardLoader <board file>...  (prints how long each file took)
+public class BoardLoader
+{
+	private final MappedByteBuffer bytes;
+	private final String fileName;
+
+	private BoardLoader(String fileName) throws IOException
+	{
+		this.fileName = fileName;
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try
+		{
+			FileChannel channel = file.getChannel();
+			bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally
+		{
+			// The mapping stays valid after the file is closed
+			file.close();
+		}
+	}
+
+	// Reads the board file with the specified name and returns a Board
+	// with all of its pieces placed
+	public static Board load(String fileName)
+	{
+		try
+		{
+			return new BoardLoader(fileName).read();
+		}
+		catch (IOException e)
+		{
+			throw new IllegalArgumentException("Cannot read board file " + fileName, e);
+		}
+	}
+
+	// Returns the player to move next on the specified Board, which a board
+	// file does not record: the player with fewer pieces, or player 1 if
+	// they have the same number
+	public static int playerToMove(Board board)
+	{
+		int[] pieces = new int[3];
+		for (int i = 0; i < board.getRows() * board.getColumns(); i++)
+		{
+			pieces[board.getPlayer(i)]++;
+		}
+		return pieces[Board.PLAYER_2] < pieces[Board.PLAYER_1] ? Board.PLAYER_2 : Board.PLAYER_1;
+	}
+
+	private Board read()
+	{
+		int rows = readInt();
+		int columns = readInt();
+		if (rows <= 0 || columns <= 0)
+		{
+			throw error("Bad board size " + rows + "x" + columns);
+		}
+
+		byte[] players = new byte[rows * columns];
+		while (skipWhitespace())
+		{
+			int row = readInt();
+			int column = readInt();
+			int player = readInt();
+			if (row >= rows || column >= columns)
+			{
+				throw error("Space " + row + ", " + column + " is off the board");
+			}
+			if (player != Board.PLAYER_1 && player != Board.PLAYER_2)
+			{
+				throw error("Unknown player " + player);
+			}
+			players[row * columns + column] = (byte) player;
+		}
+
+		Board board = new Board(rows, columns);
+		board.setAllPlayers(players);
+		return board;
+	}
+
+	// Skips any whitespace, and returns whether there is anything left
+	private boolean skipWhitespace()
+	{
+		while (bytes.hasRemaining())
+		{
+			byte b = bytes.get(bytes.position());
+			if (b != ' ' && b != '\n' && b != '\r' && b != '\t')
+			{
+				return true;
+			}
+			bytes.get();
+		}
+		return false;
+	}
+
+	// Reads the next non-negative decimal number
+	private int readInt()
+	{
+		if (!skipWhitespace())
+		{
+			throw error("Expected a number but the file ended");
+		}
+
+		int value = 0;
+		int digits = 0;
+		while (bytes.hasRemaining())
+		{
+			byte b = bytes.get(bytes.position());
+			if (b < '0' || b > '9')
+			{
+				break;
+			}
+			bytes.get();
+			value = value * 10 + (b - '0');
+			digits++;
+		}
+
+		if (digits == 0)
+		{
+			throw error("Expected a number");
+		}
+		return value;
+	}
+
+	private IllegalArgumentException error(String message)
+	{
+		return new IllegalArgumentException(fileName + ", byte " + bytes.position() + ": " + message);
+	}
+
+	public static void main(String[] args)
+	{
+		for (String fileName : args)
+		{
+			long start = System.nanoTime();
+			Board board = load(fileName);
+			long elapsed = System.nanoTime() - start;
+			System.out.printf("%s: %dx%d loaded in %.2f ms, winner %d%n", fileName,
+					board.getRows(), board.getColumns(), elapsed / 1e6, board.getCurrentWinner());
+		}
+	}
+}
@@ -0,0 +1,220 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+// Checks that Board.undoMove, and the UndoableUnionFind.undo under it, put
+// a Board back exactly as it was before the move.  Random games are played
+// with makeMove on boards of several sizes and then taken back one move at
+// a time.  After each undo, the Board must match both the state recorded
+// before that move and a Board rebuilt from scratch with the same pieces:
+// the same number of components, the same component for every site, and
+// the same connections to each of the four sides.
+public class BoardUndoTest
+{
+	private static final int[][] SIZES = { {1, 1}, {2, 2}, {3, 5}, {5, 3}, {7, 7}, {11, 11}, {6, 17} };
+	private static final int GAMES_PER_SIZE = 20;
+
+	@Test
+	public void undoRestoresEveryMove()
+	{
+		Random random = new Random(1);
+		for (int[] size : SIZES)
+		{
+			for (int game = 0; game < GAMES_PER_SIZE; game++)
+			{
+				playAndUndo(new Board(size[0], size[1]), random);
+			}
+		}
+	}
+
+	@Test
+	public void undoRestoresMovesMadeAfterSetPlayer()
+	{
+		Random random = new Random(2);
+		for (int[] size : SIZES)
+		{
+			for (int game = 0; game < GAMES_PER_SIZE; game++)
+			{
+				Board board = new Board(size[0], size[1]);
+				int spaces = size[0] * size[1];
+				for (int i = 0; i < spaces / 3; i++)
+				{
+					int index = random.nextInt(spaces);
+					if (board.getPlayer(index) == Board.PLAYER_NONE)
+					{
+						board.setPlayer(index, 1 + random.nextInt(2));
+					}
+				}
+				playAndUndo(board, random);
+			}
+		}
+	}
+
+	@Test
+	public void setPlayerIsRefusedWhileMovesCanBeUndone()
+	{
+		Board board = new Board(5, 5);
+		board.makeMove(board.indexOf(0, 0), Board.PLAYER_1);
+		board.makeMove(board.indexOf(0, 1), Board.PLAYER_1);
+		State before = new State(board);
+		try
+		{
+			board.setPlayer(board.indexOf(1, 0), Board.PLAYER_1);
+			fail("setPlayer was allowed with moves to undo");
+		}
+		catch (IllegalStateException e)
+		{
+			// Expected
+		}
+		before.check(board, "after the refused setPlayer");
+
+		// Once every move is taken back, setPlayer works again, and its
+		// piece survives later moves being made and taken back
+		board.undoMove();
+		board.undoMove();
+		board.setPlayer(board.indexOf(1, 0), Board.PLAYER_1);
+		State placed = new State(board);
+		board.makeMove(board.indexOf(1, 1), Board.PLAYER_1);
+		board.makeMove(board.indexOf(2, 0), Board.PLAYER_1);
+		board.undoMove();
+		board.undoMove();
+		placed.check(board, "after undoing moves made after setPlayer");
+		checkAgainstRebuilt(board, "after undoing moves made after setPlayer");
+	}
+
+	// Fills the board with random moves, recording its state before each
+	// one, then takes them all back, checking the state after each undo
+	private static void playAndUndo(Board board, Random random)
+	{
+		int spaces = board.getRows() * board.getColumns();
+		int[] empty = new int[spaces];
+		int emptyCount = 0;
+		for (int i = 0; i < spaces; i++)
+		{
+			if (board.getPlayer(i) == Board.PLAYER_NONE)
+			{
+				empty[emptyCount++] = i;
+			}
+		}
+
+		// Sometimes stop partway, as a search would
+		int moves = random.nextBoolean() ? emptyCount : random.nextInt(emptyCount + 1);
+		State[] before = new State[moves];
+		int player = Board.PLAYER_1;
+		for (int move = 0; move < moves; move++)
+		{
+			before[move] = new State(board);
+			int pick = random.nextInt(emptyCount);
+			int index = empty[pick];
+			empty[pick] = empty[--emptyCount];
+			board.makeMove(index, player);
+			player = 3 - player;
+		}
+
+		for (int move = moves - 1; move >= 0; move--)
+		{
+			board.undoMove();
+			String where = board.getRows() + "x" + board.getColumns() + " after undoing move " + move;
+			before[move].check(board, where);
+			checkAgainstRebuilt(board, where);
+		}
+	}
+
+	// Checks the Board against a Board built from scratch with the same
+	// pieces.  The two union-finds may pick different roots, so components
+	// are compared by which sites they hold rather than by root.
+	private static void checkAgainstRebuilt(Board board, String where)
+	{
+		int spaces = board.getRows() * board.getColumns();
+		byte[] players = new byte[spaces];
+		for (int i = 0; i < spaces; i++)
+		{
+			players[i] = (byte) board.getPlayer(i);
+		}
+		Board rebuilt = new Board(board.getRows(), board.getColumns());
+		rebuilt.setAllPlayers(players);
+
+		UndoableUnionFind connections = board.getConnections();
+		UndoableUnionFind expected = rebuilt.getConnections();
+		assertEquals(where + ": count()", expected.count(), connections.count());
+		assertArrayEquals(where + ": components", labels(expected, spaces + 4), labels(connections, spaces + 4));
+		assertArrayEquals(where + ": side connections", rebuilt.getSideConnections(), board.getSideConnections());
+		assertEquals(where + ": winner", rebuilt.getCurrentWinner(), board.getCurrentWinner());
+	}
+
+	// Labels every site with the lowest site in its component
+	private static int[] labels(UndoableUnionFind connections, int sites)
+	{
+		int[] lowest = new int[sites];
+		int[] labels = new int[sites];
+		Arrays.fill(lowest, -1);
+		for (int i = 0; i < sites; i++)
+		{
+			int root = connections.find(i);
+			if (lowest[root] < 0)
+			{
+				lowest[root] = i;
+			}
+			labels[i] = lowest[root];
+		}
+		return labels;
+	}
+
+	// Everything undoMove has to put back, recorded from a Board
+	private static class State
+	{
+		private final int count;
+		private final int[] roots;
+		private final byte[] players;
+		private final byte[] sideConnections;
+		private final int[] sideRoots;
+		private final long hash;
+
+		State(Board board)
+		{
+			int spaces = board.getRows() * board.getColumns();
+			UndoableUnionFind connections = board.getConnections();
+			count = connections.count();
+			roots = new int[spaces + 4];
+			for (int i = 0; i < roots.length; i++)
+			{
+				roots[i] = connections.find(i);
+			}
+			players = new byte[spaces];
+			for (int i = 0; i < spaces; i++)
+			{
+				players[i] = (byte) board.getPlayer(i);
+			}
+			sideConnections = board.getSideConnections().clone();
+			sideRoots = Arrays.copyOfRange(roots, spaces, spaces + 4);
+			hash = board.getHash();
+		}
+
+		// Checks that the Board is back in exactly this state
+		void check(Board board, String where)
+		{
+			UndoableUnionFind connections = board.getConnections();
+			assertEquals(where + ": count()", count, connections.count());
+			for (int i = 0; i < roots.length; i++)
+			{
+				assertEquals(where + ": find(" + i + ")", roots[i], connections.find(i));
+			}
+			int spaces = players.length;
+			for (int side = 0; side < 4; side++)
+			{
+				assertEquals(where + ": side " + side, sideRoots[side], connections.find(spaces + side));
+			}
+			for (int i = 0; i < spaces; i++)
+			{
+				assertEquals(where + ": space " + i, players[i], board.getPlayer(i));
+			}
+			assertArrayEquals(where + ": side connections", sideConnections, board.getSideConnections());
+			assertEquals(where + ": hash", hash, board.getHash());
+		}
+	}
+}
@@ -0,0 +1,150 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Connects a local Player to a GameServer (see there for the protocol) and
+// plays games with it.  Several connections can be opened at once, each
+// with its own Player, so one process can keep many games going.
+//
+// Usage: java GameClient <player> [connections] [games per connection] [host] [port]
+//
+// The player is given the same way as for Tournament, e.g. PlayerSmart:1:20000.
+// With no game limit, each connection plays until the server goes away.
+public class GameClient
+{
+	private final String playerSpec;
+	private final String host;
+	private final int port;
+
+	private final AtomicInteger games = new AtomicInteger();
+	private final AtomicInteger wins = new AtomicInteger();
+	private final AtomicInteger noResults = new AtomicInteger();
+
+	// Constructs a client that plays as the specified player on the server
+	// at the specified host and port
+	public GameClient(String playerSpec, String host, int port)
+	{
+		this.playerSpec = playerSpec;
+		this.host = host;
+		this.port = port;
+	}
+
+	// Plays the specified number of games (or until disconnected, if
+	// negative) over one connection
+	public void play(int gameLimit) throws IOException
+	{
+		Player player = Tournament.createPlayer(playerSpec);
+		Socket socket = new Socket(host, port);
+		try
+		{
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			out.write("HELLO " + playerSpec + "\n");
+			out.flush();
+
+			Board board = null;
+			int me = Board.PLAYER_NONE;
+			int played = 0;
+			String line;
+			while (played != gameLimit && (line = in.readLine()) != null)
+			{
+				String[] parts = line.split(" ");
+				if (parts[0].equals("START"))
+				{
+					board = new Board(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+					me = Integer.parseInt(parts[3]);
+				}
+				else if (parts[0].equals("PLAYED"))
+				{
+					board.setPlayer(board.indexOf(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])),
+							Integer.parseInt(parts[3]));
+				}
+				else if (parts[0].equals("YOURMOVE"))
+				{
+					Location move = player.getNextMove(board.snapshot(), me);
+					out.write("MOVE " + move.getRow() + " " + move.getColumn() + "\n");
+					out.flush();
+				}
+				else if (parts[0].equals("END"))
+				{
+					played++;
+					games.incrementAndGet();
+					int winner = Integer.parseInt(parts[1]);
+					if (winner == me)
+					{
+						wins.incrementAndGet();
+					}
+					else if (winner == Board.PLAYER_NONE)
+					{
+						noResults.incrementAndGet();
+					}
+				}
+				else if (parts[0].equals("ILLEGAL"))
+				{
+					System.out.println(playerSpec + " was disqualified: " + line.substring("ILLEGAL ".length()));
+					return;
+				}
+			}
+		}
+		finally
+		{
+			socket.close();
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		if (args.length < 1)
+		{
+			System.out.println("Usage: java GameClient <player> [connections] [games per connection] [host] [port]");
+			return;
+		}
+
+		int connections = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		final int gameLimit = args.length > 2 ? Integer.parseInt(args[2]) : -1;
+		String host = args.length > 3 ? args[3] : InetAddress.getLoopbackAddress().getHostAddress();
+		int port = args.length > 4 ? Integer.parseInt(args[4]) : GameServer.DEFAULT_PORT;
+
+		final GameClient client = new GameClient(args[0], host, port);
+		List<Thread> threads = new ArrayList<Thread>();
+		long start = System.nanoTime();
+		for (int i = 0; i < connections; i++)
+		{
+			Thread thread = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						client.play(gameLimit);
+					}
+					catch (IOException e)
+					{
+						System.out.println("Connection failed: " + e.getMessage());
+					}
+				}
+			}, "GameClient " + i);
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%s won %d of %d games, %d without a result (%.1f games/sec)%n", args[0],
+				client.wins.get(), client.games.get(), client.noResults.get(), client.games.get() / seconds);
+	}
+}
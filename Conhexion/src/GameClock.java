@@ -0,0 +1,142 @@
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// A chess-style clock for the two players of a game: each starts with the
+// same amount of time, the time a player takes for a move comes off its
+// own clock, and a fixed increment is added back after every move.
+//
+// getMove asks a player for its move on a thread of the clock's own, and
+// waits no longer than the time left on the player's clock.  A player that
+// has not answered by then is interrupted and has lost on time, so a
+// player that hangs can no longer stall the game.  TimedPlayers are told
+// how much time they have; other players are simply cut off.
+public class GameClock
+{
+	private final long incrementNanos;
+	private final long[] remainingNanos;
+	private final ExecutorService executor;
+
+	// Constructs a clock that gives each player the specified time for the
+	// whole game, plus the specified increment for each move
+	public GameClock(long initialNanos, long incrementNanos)
+	{
+		if (initialNanos <= 0 || incrementNanos < 0)
+		{
+			throw new IllegalArgumentException("Bad time control: " + initialNanos + " ns + " + incrementNanos + " ns");
+		}
+
+		this.incrementNanos = incrementNanos;
+		this.remainingNanos = new long[] { 0, initialNanos, initialNanos };
+		this.executor = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "GameClock");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	// Asks the specified player for its move, and charges the time it took
+	// to that player's clock.  Returns null if the player ran out of time.
+	public Location getMove(final Player player, final Board board, final int playerNumber)
+	{
+		final long remaining = remainingNanos[playerNumber];
+		long start = System.nanoTime();
+		Future<Location> future = executor.submit(new Callable<Location>()
+		{
+			@Override
+			public Location call()
+			{
+				if (player instanceof TimedPlayer)
+				{
+					return ((TimedPlayer) player).getNextMove(board, playerNumber, remaining, incrementNanos);
+				}
+				return player.getNextMove(board, playerNumber);
+			}
+		});
+
+		Location move;
+		try
+		{
+			move = future.get(remaining, TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException e)
+		{
+			future.cancel(true);
+			remainingNanos[playerNumber] = 0;
+			return null;
+		}
+		catch (InterruptedException e)
+		{
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for player # " + playerNumber, e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Player # " + playerNumber + " failed", e.getCause());
+		}
+
+		long elapsed = System.nanoTime() - start;
+		if (elapsed >= remaining)
+		{
+			remainingNanos[playerNumber] = 0;
+			return null;
+		}
+		remainingNanos[playerNumber] = remaining - elapsed + incrementNanos;
+		return move;
+	}
+
+	// Returns the time left on the specified player's clock
+	public long getRemainingNanos(int player)
+	{
+		return remainingNanos[player];
+	}
+
+	// Returns the time added to a player's clock after each of its moves
+	public long getIncrementNanos()
+	{
+		return incrementNanos;
+	}
+
+	// Stops the clock's thread, interrupting any player still thinking
+	public void close()
+	{
+		executor.shutdownNow();
+	}
+
+	// Formats a clock reading as minutes and seconds, e.g. "4:07.3"
+	public static String format(long nanos)
+	{
+		long tenths = Math.max(0, nanos) / 100000000L;
+		return String.format("%d:%02d.%d", tenths / 600, tenths / 10 % 60, tenths % 10);
+	}
+
+	// Parses a time control given in seconds, optionally followed by a "+"
+	// and the increment in seconds, e.g. "60" or "300+2.5".  Returns the
+	// initial time and the increment, in nanoseconds.
+	public static long[] parse(String timeControl)
+	{
+		String[] parts = timeControl.split("\\+");
+		if (parts.length > 2)
+		{
+			throw new IllegalArgumentException("Bad time control " + timeControl);
+		}
+		long initial = (long) (Double.parseDouble(parts[0]) * 1e9);
+		long increment = parts.length > 1 ? (long) (Double.parseDouble(parts[1]) * 1e9) : 0;
+		return new long[] { initial, increment };
+	}
+}
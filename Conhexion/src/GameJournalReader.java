@@ -0,0 +1,284 @@
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Reads back the games in a journal written by GameJournalWriter (see there
+// for the format), one at a time.  next() moves to the next game, whose
+// details are then available from the getters, and replay() plays it out
+// on a new Board.  The buffers are reused from game to game, so reading
+// millions of games does not create millions of objects.
+//
+// Usage: java GameJournalReader <journal>...  (replays every game, checks
+// the recorded winners, and reports how fast it went.  A game whose board
+// was not decided, but that has a recorded winner, was won by forfeit,
+// e.g. on time; those are counted apart from real mismatches.)
+public class GameJournalReader
+{
+	private final InputStream in;
+
+	private byte[] record = new byte[256];
+	private int recordLength;
+	private int position;
+
+	private int rows;
+	private int columns;
+	private String player1Name;
+	private String player2Name;
+	private int[] pieces = new int[64];
+	private int pieceCount;
+	private int firstPlayer;
+	private int[] moves = new int[256];
+	private int moveCount;
+	private int winner;
+
+	// Opens the journal with the specified name
+	public GameJournalReader(String fileName) throws IOException
+	{
+		this(new FileInputStream(fileName));
+	}
+
+	// Reads a journal from the specified stream, starting with its header
+	public GameJournalReader(InputStream in) throws IOException
+	{
+		this.in = new BufferedInputStream(in, 1 << 16);
+		byte[] header = new byte[GameJournalWriter.MAGIC.length + 1];
+		readFully(header, header.length);
+		if (!Arrays.equals(Arrays.copyOf(header, GameJournalWriter.MAGIC.length), GameJournalWriter.MAGIC) ||
+				header[GameJournalWriter.MAGIC.length] != GameJournalWriter.VERSION)
+		{
+			throw new IOException("Not a version " + GameJournalWriter.VERSION + " game journal");
+		}
+	}
+
+	// Moves to the next game in the journal.  Returns false when there are
+	// no more games (including when the last record was cut short).
+	public boolean next() throws IOException
+	{
+		int length = 0;
+		for (int shift = 0; ; shift += 7)
+		{
+			int b = in.read();
+			if (b < 0)
+			{
+				return false;
+			}
+			length |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				break;
+			}
+		}
+
+		if (length > record.length)
+		{
+			record = new byte[Math.max(length, record.length * 2)];
+		}
+		try
+		{
+			readFully(record, length);
+		}
+		catch (EOFException e)
+		{
+			return false;
+		}
+		recordLength = length;
+		position = 0;
+
+		rows = readVarint();
+		columns = readVarint();
+		player1Name = readString();
+		player2Name = readString();
+
+		pieceCount = readVarint();
+		if (pieceCount > pieces.length)
+		{
+			pieces = new int[Math.max(pieceCount, pieces.length * 2)];
+		}
+		for (int i = 0; i < pieceCount; i++)
+		{
+			pieces[i] = readVarint();
+		}
+
+		firstPlayer = readVarint();
+		moveCount = readVarint();
+		if (moveCount > moves.length)
+		{
+			moves = new int[Math.max(moveCount, moves.length * 2)];
+		}
+		for (int i = 0; i < moveCount; i++)
+		{
+			moves[i] = readVarint();
+		}
+		winner = readVarint();
+		return true;
+	}
+
+	// Returns the number of rows of the current game's board
+	public int getRows()
+	{
+		return rows;
+	}
+
+	// Returns the number of columns of the current game's board
+	public int getColumns()
+	{
+		return columns;
+	}
+
+	// Returns the name recorded for the specified player
+	public String getPlayerName(int player)
+	{
+		return player == Board.PLAYER_1 ? player1Name : player2Name;
+	}
+
+	// Returns the number of pieces that were on the board before the
+	// first move
+	public int getPieceCount()
+	{
+		return pieceCount;
+	}
+
+	// Returns the player who made the first move
+	public int getFirstPlayer()
+	{
+		return firstPlayer;
+	}
+
+	// Returns the number of moves in the current game
+	public int getMoveCount()
+	{
+		return moveCount;
+	}
+
+	// Returns the space index of the specified move
+	public int getMove(int move)
+	{
+		return moves[move];
+	}
+
+	// Returns the player who made the specified move
+	public int getMovePlayer(int move)
+	{
+		return move % 2 == 0 ? firstPlayer : 3 - firstPlayer;
+	}
+
+	// Returns the recorded winner of the current game
+	public int getWinner()
+	{
+		return winner;
+	}
+
+	// Returns a new Board with the starting pieces of the current game
+	public Board getStart()
+	{
+		byte[] players = new byte[rows * columns];
+		for (int i = 0; i < pieceCount; i++)
+		{
+			players[pieces[i] >> 1] = (byte) ((pieces[i] & 1) + 1);
+		}
+		Board board = new Board(rows, columns);
+		board.setAllPlayers(players);
+		return board;
+	}
+
+	// Returns a new Board with the current game played out on it
+	public Board replay()
+	{
+		Board board = getStart();
+		int player = firstPlayer;
+		for (int i = 0; i < moveCount; i++)
+		{
+			board.setPlayer(moves[i], player);
+			player = 3 - player;
+		}
+		return board;
+	}
+
+	// Closes the journal
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+	private void readFully(byte[] buffer, int length) throws IOException
+	{
+		int read = 0;
+		while (read < length)
+		{
+			int count = in.read(buffer, read, length - read);
+			if (count < 0)
+			{
+				throw new EOFException();
+			}
+			read += count;
+		}
+	}
+
+	private int readVarint() throws IOException
+	{
+		int value = 0;
+		for (int shift = 0; ; shift += 7)
+		{
+			if (position == recordLength)
+			{
+				throw new IOException("Corrupt game record");
+			}
+			byte b = record[position++];
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+			{
+				return value;
+			}
+		}
+	}
+
+	private String readString() throws IOException
+	{
+		int length = readVarint();
+		if (position + length > recordLength)
+		{
+			throw new IOException("Corrupt game record");
+		}
+		String s = new String(record, position, length, StandardCharsets.UTF_8);
+		position += length;
+		return s;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		long games = 0;
+		long moves = 0;
+		long mismatches = 0;
+		long forfeits = 0;
+		long start = System.nanoTime();
+		for (String fileName : args)
+		{
+			GameJournalReader reader = new GameJournalReader(fileName);
+			while (reader.next())
+			{
+				int replayedWinner = reader.replay().getCurrentWinner();
+				if (replayedWinner == Board.PLAYER_NONE)
+				{
+					if (reader.getWinner() != Board.PLAYER_NONE)
+					{
+						forfeits++;
+					}
+				}
+				else if (replayedWinner != reader.getWinner())
+				{
+					mismatches++;
+				}
+				games++;
+				moves += reader.getMoveCount();
+			}
+			reader.close();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Replayed %d games (%d moves) in %.2f s: %.0f games/sec, %.0f moves/sec, %d forfeit(s), %d winner mismatch(es)%n",
+				games, moves, seconds, games / seconds, moves / seconds, forfeits, mismatches);
+	}
+}
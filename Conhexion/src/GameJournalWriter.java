@@ -0,0 +1,321 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Appends games to a journal: a compact binary file holding any number of
+// games, one after another.  GameJournalReader reads them back.
+//
+// A journal starts with the four bytes "HEXJ" and a version byte.  Each game
+// after that is a record made of unsigned LEB128 varints:
+//
+//   record length (in bytes, not counting this varint)
+//   rows, columns
+//   player 1 name, player 2 name (each a byte length, then UTF-8)
+//   number of pieces on the board before the first move, then for each
+//     one: space index * 2 + (player - 1)
+//   player who made the first move
+//   number of moves, then the space index of each move (players alternate)
+//   winner (one of the Board "player" ints).  This is the winner the game
+//     was awarded, which is not the winner on the board if the game was
+//     lost by forfeit, such as on time, or if it ended without a result
+//
+// A typical 11x11 game takes a bit over 100 bytes, about a fifth of the
+// text format of board-recorded.txt.  Records are written whole, so a
+// journal that was cut short by a crash only loses the last game, and
+// reopening it for appending cuts off what was written of that game.
+public class GameJournalWriter
+{
+	static final byte[] MAGIC = { 'H', 'E', 'X', 'J' };
+	static final int VERSION = 1;
+
+	private final OutputStream out;
+
+	// The record being built, and the length varint written in front of it
+	private byte[] record = new byte[256];
+	private int recordLength;
+	private final byte[] prefix = new byte[5];
+
+	private boolean inGame;
+	private int moveCountPosition;
+	private int moveCount;
+	private byte[] moves = new byte[256];
+	private int movesLength;
+
+	// Opens the journal with the specified name for appending, creating
+	// it if it does not exist yet
+	public GameJournalWriter(String fileName) throws IOException
+	{
+		this(openForAppend(fileName), false);
+	}
+
+	// Writes a new journal, header first, to the specified stream, which
+	// can be anything from a socket to a GZIPOutputStream
+	public GameJournalWriter(OutputStream out) throws IOException
+	{
+		this(out, true);
+	}
+
+	private GameJournalWriter(OutputStream out, boolean writeHeader) throws IOException
+	{
+		this.out = new BufferedOutputStream(out, 1 << 16);
+		if (writeHeader)
+		{
+			this.out.write(MAGIC);
+			this.out.write(VERSION);
+		}
+	}
+
+	// Opens the journal with the specified name for appending, after
+	// checking its header, or creates it with a header if it does not
+	// exist yet.  If the journal was cut short in the middle of a record,
+	// the partial record is cut off, so that new games follow the last
+	// whole one instead of being read as part of it.
+	private static OutputStream openForAppend(String fileName) throws IOException
+	{
+		File file = new File(fileName);
+		long length = file.length();
+		long end = 0;
+		if (length > 0)
+		{
+			end = endOfLastRecord(file, length);
+		}
+
+		FileOutputStream out = new FileOutputStream(file, true);
+		try
+		{
+			if (end < length)
+			{
+				out.getChannel().truncate(end);
+			}
+			if (end == 0)
+			{
+				out.write(MAGIC);
+				out.write(VERSION);
+			}
+		}
+		catch (IOException e)
+		{
+			out.close();
+			throw e;
+		}
+		return out;
+	}
+
+	// Returns the position just past the last whole record in the specified
+	// journal, which is the specified number of bytes long, or 0 if not even
+	// its header was written in full
+	private static long endOfLastRecord(File file, long length) throws IOException
+	{
+		byte[] header = new byte[MAGIC.length + 1];
+		header[MAGIC.length] = VERSION;
+		System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+
+		InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+		try
+		{
+			int headerLength = (int) Math.min(length, header.length);
+			for (int i = 0; i < headerLength; i++)
+			{
+				if (in.read() != (header[i] & 0xFF))
+				{
+					throw new IOException(file + " is not a version " + VERSION + " game journal");
+				}
+			}
+			if (headerLength < header.length)
+			{
+				return 0;
+			}
+
+			// Skip from record to record by their lengths
+			long end = header.length;
+			while (end < length)
+			{
+				long position = end;
+				int recordLength = 0;
+				int b;
+				int shift = 0;
+				do
+				{
+					if (position == length || shift > 28)
+					{
+						return end;
+					}
+					b = in.read();
+					position++;
+					recordLength |= (b & 0x7F) << shift;
+					shift += 7;
+				}
+				while ((b & 0x80) != 0);
+
+				if (recordLength < 0 || recordLength > length - position)
+				{
+					return end;
+				}
+				skipFully(in, recordLength);
+				end = position + recordLength;
+			}
+			return end;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	private static void skipFully(InputStream in, long count) throws IOException
+	{
+		while (count > 0)
+		{
+			long skipped = in.skip(count);
+			if (skipped <= 0)
+			{
+				throw new EOFException();
+			}
+			count -= skipped;
+		}
+	}
+
+	// Starts recording a game that begins from the position on the
+	// specified Board, with the specified player making the first move
+	public void begin(Board start, String player1Name, String player2Name, int firstPlayer)
+	{
+		if (inGame)
+		{
+			throw new IllegalStateException("The previous game was not ended");
+		}
+		inGame = true;
+		recordLength = 0;
+		movesLength = 0;
+		moveCount = 0;
+
+		int spaces = start.getRows() * start.getColumns();
+		int pieces = 0;
+		for (int i = 0; i < spaces; i++)
+		{
+			if (start.getPlayer(i) != Board.PLAYER_NONE)
+			{
+				pieces++;
+			}
+		}
+
+		writeVarint(start.getRows());
+		writeVarint(start.getColumns());
+		writeString(player1Name);
+		writeString(player2Name);
+		writeVarint(pieces);
+		for (int i = 0; i < spaces; i++)
+		{
+			int player = start.getPlayer(i);
+			if (player != Board.PLAYER_NONE)
+			{
+				writeVarint(i * 2 + player - 1);
+			}
+		}
+		writeVarint(firstPlayer);
+		moveCountPosition = recordLength;
+	}
+
+	// Records a move to the space with the specified index, made by
+	// whichever player's turn it is (players alternate from the first)
+	public void move(int index)
+	{
+		if (!inGame)
+		{
+			throw new IllegalStateException("No game has been begun");
+		}
+		int value = index;
+		while (true)
+		{
+			if (movesLength == moves.length)
+			{
+				moves = Arrays.copyOf(moves, movesLength * 2);
+			}
+			if ((value & ~0x7F) == 0)
+			{
+				moves[movesLength++] = (byte) value;
+				break;
+			}
+			moves[movesLength++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		moveCount++;
+	}
+
+	// Ends the game with the specified winner and appends its record
+	// to the journal
+	public void end(int winner) throws IOException
+	{
+		if (!inGame)
+		{
+			throw new IllegalStateException("No game has been begun");
+		}
+		inGame = false;
+
+		recordLength = moveCountPosition;
+		writeVarint(moveCount);
+		ensureCapacity(movesLength + 1);
+		System.arraycopy(moves, 0, record, recordLength, movesLength);
+		recordLength += movesLength;
+		writeVarint(winner);
+
+		int prefixLength = 0;
+		int value = recordLength;
+		while ((value & ~0x7F) != 0)
+		{
+			prefix[prefixLength++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		prefix[prefixLength++] = (byte) value;
+
+		out.write(prefix, 0, prefixLength);
+		out.write(record, 0, recordLength);
+	}
+
+	// Writes any buffered games to the file
+	public void flush() throws IOException
+	{
+		out.flush();
+	}
+
+	// Writes any buffered games to the file and closes it
+	public void close() throws IOException
+	{
+		out.close();
+	}
+
+	private void writeString(String s)
+	{
+		byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+		writeVarint(utf8.length);
+		ensureCapacity(utf8.length);
+		System.arraycopy(utf8, 0, record, recordLength, utf8.length);
+		recordLength += utf8.length;
+	}
+
+	private void writeVarint(int value)
+	{
+		ensureCapacity(5);
+		while ((value & ~0x7F) != 0)
+		{
+			record[recordLength++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		record[recordLength++] = (byte) value;
+	}
+
+	private void ensureCapacity(int extra)
+	{
+		if (recordLength + extra > record.length)
+		{
+			record = Arrays.copyOf(record, Math.max(record.length * 2, recordLength + extra));
+		}
+	}
+}
@@ -1,482 +1,1042 @@
-import java.awt.Color;
-import java.awt.Font;
-import java.awt.Frame;
-import java.util.Scanner;
-
-public class GameManager
-{
-	// Width of the canvas, measured in number of pixels.
-	private final int CANVAS_WIDTH_PIXELS = 1000;
-
-	// Distance from center of game piece to corner
-	private final double RADIUS = 1;
-
-	// Distance from center to midpoint of an edge
-	private final double TO_EDGE = RADIUS * Math.cos(Math.PI * 1.0 / 6.0);
-
-	// Length of each edge of each hexagon location
-	private final double EDGE_LENGTH = RADIUS * (Math.sin(Math.PI * 5.0 / 6.0) - Math.sin(Math.PI * 7.0 / 6.0));
-
-	// Height, in pixels, of the text that indicates the status (whose turn it is, or
-	// who won the game).
-	private static final int STATUS_TEXT_HEIGHT_PIXELS = 40;
-
-	// Colors of the dots inside the spaces which indicate whether the hexagon is connected to a side
-	// (Array indexed by player number.)
-	private static final Color[] CONNECTION_GLYPH_COLORS = {StdDraw.BLACK, new Color(255, 100, 50), new Color(50, 250, 255)};
-
-	// Colors to paint the hexagon pieces
-	// (Array indexed by player number.)
-	private static final Color[] FILL_COLORS = {StdDraw.LIGHT_GRAY, new Color(200, 0, 0), new Color(0, 0, 200)};
-
-	// If you only want to see the status text (whose turn it is), and the board is too
-	// big to draw efficiently, set this to false for faster run times
-	private final boolean DRAW_BOARD = true;
-
-	private final double[] spaceXOffsets;
-	private final double[] spaceYOffsets;
-	private final double width;
-
-	private boolean initialPiecesPlaced;
-	private double height;
-	private final double bufferX;
-	private final double bufferY;
-	private final double borderThickness; 
-
-	private final int rows;
-	private final int columns;
-
-	private final double statusTextX;
-	private final double statusTextY;
-
-	private Board board;
-
-	// Either PLAYER_1 or PLAYER_2
-	private int curPlayer;
-
-	public GameManager(Board board)
-	{
-		initialPiecesPlaced = false;
-
-		this.rows = board.getRows();
-		this.columns = board.getColumns();
-		this.board = board;
-		this.curPlayer = Board.PLAYER_1;
-
-		int biggerDim = Math.max(rows, columns);
-
-		width = getRowLeftBuffer(rows - 1) + (biggerDim + 1) * 2 * TO_EDGE - 1;
-		height = ((biggerDim + 2) / 2) * 2 * RADIUS + ((biggerDim + 1) / 2) * EDGE_LENGTH;
-
-		bufferX = (width * 0.5) / (TO_EDGE * 34 - 1);
-		bufferY = (height * 0.25) / ((TO_EDGE * 34 - 1) / 1.5);
-
-		int heightPixels = (int) (CANVAS_WIDTH_PIXELS * ( height / width )) + STATUS_TEXT_HEIGHT_PIXELS;
-		height = heightPixels * (width / CANVAS_WIDTH_PIXELS);
-		StdDraw.setCanvasSize(CANVAS_WIDTH_PIXELS, heightPixels);
-		StdDraw.setXscale(0.0, width);
-		StdDraw.setYscale(0.0, height);
-		StdDraw.clear();
-		for (Frame frame : Frame.getFrames())
-		{
-			if (frame.isVisible())
-			{
-				frame.setTitle("Conhexion");
-			}
-		}
-
-		spaceXOffsets = new double[6];
-		spaceYOffsets = new double[6];
-
-		for (int i=0; i < 6; i++)
-		{
-			spaceXOffsets[i] = Math.cos((2 * i + 1) / 6.0 * Math.PI);
-			spaceYOffsets[i] = Math.sin((2 * i + 1) / 6.0 * Math.PI);
-		}
-
-		double lengthBasedThickness = EDGE_LENGTH * 0.75;
-		double constantThickness = (width * EDGE_LENGTH * 1.5) / (TO_EDGE * 34 - 1);
-
-		borderThickness = Math.max(lengthBasedThickness, constantThickness);
-
-		Point2D spaceNearStatusText = getSpaceCenter(rows - 1, 0);
-		statusTextX = spaceNearStatusText.x();
-		statusTextY = spaceNearStatusText.y() - RADIUS - borderThickness - 7 * (width / CANVAS_WIDTH_PIXELS);
-
-		StdDraw.show(0);
-
-		drawBoard();
-	}
-
-	private double getRowLeftBuffer(int row)
-	{
-		return row * TO_EDGE;
-	}
-
-	private void drawBoard()
-	{
-		StdDraw.setPenRadius(0.008);
-		StdDraw.picture(width / 2, height / 2, "woodgrain.jpg", width * 1.25, height * 1.25);
-
-		if (DRAW_BOARD)
-		{
-			drawBorders();
-
-			for (int row=0; row < rows; row++)
-			{
-				for (int col=0; col < columns; col++)
-				{
-					drawSpace(row, col);
-				}
-			}
-		}
-
-		StdDraw.setPenColor(StdDraw.YELLOW);
-		StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 32));
-		String statusText = null;
-		if (!initialPiecesPlaced)
-		{
-			statusText = "Placing initial pieces...";
-		}
-		else if (board.getCurrentWinner() == Board.PLAYER_1)
-		{
-			statusText = "Winner: Player 1";
-		}
-		else if (board.getCurrentWinner() == Board.PLAYER_2)
-		{
-			statusText = "Winner: Player 2";
-		}
-		else
-		{
-			statusText = "Ready player " + curPlayer;
-		}
-
-		StdDraw.textLeft(statusTextX, statusTextY, statusText);
-		StdDraw.show(0);
-	}
-
-	private void drawBorders()
-	{
-		Point2D topLeftCenter = getSpaceCenter(0, 0);
-		Point2D topRightCenter = getSpaceCenter(0, columns - 1);
-		Point2D bottomLeftCenter = getSpaceCenter(rows - 1, 0);
-		Point2D bottomRightCenter = getSpaceCenter(rows - 1, columns - 1);
-
-		double labelOffset = RADIUS + borderThickness / 5;
-
-		{
-			// LEFT: Player 2 (BLUE)
-
-			double[] xPolygon = new double[rows * 2 + 2];
-			double[] yPolygon = new double [rows * 2 + 2];
-
-			for (int row = 0; row < rows; row++)
-			{
-				Point2D space = getSpaceCenter(row, 0);
-				xPolygon[row*2] = space.x() + spaceXOffsets[2];
-				yPolygon[row*2] = space.y() + spaceYOffsets[2];
-				xPolygon[row*2 + 1] = space.x() + spaceXOffsets[3];
-				yPolygon[row*2 + 1] = space.y() + spaceYOffsets[3];
-			}
-
-			xPolygon[rows*2] = bottomLeftCenter.x() + spaceXOffsets[3] - borderThickness;
-			yPolygon[rows*2] = bottomLeftCenter.y() + spaceYOffsets[3];
-			xPolygon[rows*2 + 1] = topLeftCenter.x() + spaceXOffsets[2] - borderThickness;
-			yPolygon[rows*2 + 1] = topLeftCenter.y() + spaceYOffsets[2];
-
-			StdDraw.setPenColor(FILL_COLORS[Board.PLAYER_2]);
-			StdDraw.filledPolygon(xPolygon, yPolygon);
-
-			// Row labels
-			StdDraw.setPenColor(StdDraw.WHITE);
-			StdDraw.setFont();
-			for (int row = 0; row < rows; row++)
-			{
-				Point2D space = getSpaceCenter(row, 0);
-				StdDraw.text(space.x() - labelOffset, space.y(), "" + row);
-			}
-		}
-
-		{
-			// RIGHT: Player 2 (BLUE)
-
-			double[] xPolygon = new double[rows * 2 + 2];
-			double[] yPolygon = new double [rows * 2 + 2];
-
-			for (int row = 0; row < rows; row++) 
-			{
-				Point2D space = getSpaceCenter(row, columns - 1);
-				xPolygon[row*2] = space.x() + spaceXOffsets[0];
-				yPolygon[row*2] = space.y() + spaceYOffsets[0];
-				xPolygon[row*2 + 1] = space.x() + spaceXOffsets[5];
-				yPolygon[row*2 + 1] = space.y() + spaceYOffsets[5];
-			}
-
-			xPolygon[rows*2] = bottomRightCenter.x() + spaceXOffsets[5] + borderThickness;
-			yPolygon[rows*2] = bottomRightCenter.y() + spaceYOffsets[5];
-			xPolygon[rows*2 + 1] = topRightCenter.x() + spaceXOffsets[0] + borderThickness;
-			yPolygon[rows*2 + 1] = topRightCenter.y() + spaceYOffsets[0];
-
-			StdDraw.setPenColor(FILL_COLORS[Board.PLAYER_2]);
-			StdDraw.filledPolygon(xPolygon, yPolygon);
-
-			// Row labels
-			StdDraw.setPenColor(StdDraw.WHITE);
-			StdDraw.setFont();
-			for (int row = 0; row < rows; row++)
-			{
-				Point2D space = getSpaceCenter(row, columns - 1);
-				StdDraw.text(space.x() + labelOffset, space.y(), "" + row);
-			}
-		}
-		{
-			// TOP: Player 1 (RED)
-
-			double[] xPolygon = new double[columns * 2 + 3];
-			double[] yPolygon = new double [columns * 2 + 3];
-
-			for (int col = 0; col < columns; col++)
-			{
-				Point2D space = getSpaceCenter(0, col);
-				xPolygon[col*2] = space.x() + spaceXOffsets[2];
-				yPolygon[col*2] = space.y() + spaceYOffsets[2];
-				xPolygon[col*2 + 1] = space.x() + spaceXOffsets[1];
-				yPolygon[col*2 + 1] = space.y() + spaceYOffsets[1];
-			}
-
-			xPolygon[columns*2] = topRightCenter.x() + spaceXOffsets[0];
-			yPolygon[columns*2] = topRightCenter.y() + spaceYOffsets[0];
-			xPolygon[columns*2 + 1] = topRightCenter.x() + spaceXOffsets[0];
-			yPolygon[columns*2 + 1] = topRightCenter.y() + spaceYOffsets[0] + borderThickness;
-			xPolygon[columns*2 + 2] = topLeftCenter.x() + spaceXOffsets[2];
-			yPolygon[columns*2 + 2] = topLeftCenter.y() + spaceYOffsets[2] + borderThickness;
-
-			StdDraw.setPenColor(FILL_COLORS[Board.PLAYER_1]);
-			StdDraw.filledPolygon(xPolygon, yPolygon);
-
-			// Column labels
-			StdDraw.setPenColor(StdDraw.WHITE);
-			StdDraw.setFont();
-			for (int col = 0; col < columns; col++)
-			{
-				Point2D space = getSpaceCenter(0, col);
-				StdDraw.text(space.x(), space.y() + labelOffset, "" + col);
-			}
-		}
-		{
-			// BOTTOM: Player 1 (RED)
-
-			double[] xPolygon = new double[columns * 2 + 3];
-			double[] yPolygon = new double [columns * 2 + 3];
-
-			for (int col = 0; col < columns; col++)
-			{
-				Point2D space = getSpaceCenter(rows - 1, col);
-				xPolygon[col*2] = space.x() + spaceXOffsets[3];
-				yPolygon[col*2] = space.y() + spaceYOffsets[3];
-				xPolygon[col*2 + 1] = space.x() + spaceXOffsets[4];
-				yPolygon[col*2 + 1] = space.y() + spaceYOffsets[4];
-			}
-
-			xPolygon[columns*2] = bottomRightCenter.x() + spaceXOffsets[5];
-			yPolygon[columns*2] = bottomRightCenter.y() + spaceYOffsets[5];
-			xPolygon[columns*2 + 1] = bottomRightCenter.x() + spaceXOffsets[5];
-			yPolygon[columns*2 + 1] = bottomRightCenter.y() + spaceYOffsets[5] - borderThickness;
-			xPolygon[columns*2 + 2] = bottomLeftCenter.x() + spaceXOffsets[3];
-			yPolygon[columns*2 + 2] = bottomLeftCenter.y() + spaceYOffsets[3] - borderThickness;
-
-			StdDraw.setPenColor(FILL_COLORS[Board.PLAYER_1]);
-			StdDraw.filledPolygon(xPolygon, yPolygon);
-
-			// Column labels
-			StdDraw.setPenColor(StdDraw.WHITE);
-			StdDraw.setFont();
-			for (int col = 0; col < columns; col++)
-			{
-				Point2D space = getSpaceCenter(rows - 1, col);
-				StdDraw.text(space.x(), space.y() - labelOffset, "" + col);
-			}
-		}
-	}
-
-	private Point2D getSpaceCenter(int row, int col)
-	{
-		return new Point2D(
-				row * TO_EDGE + col * (2 * TO_EDGE) + RADIUS + bufferX,
-				height - row * (RADIUS + 0.5 * EDGE_LENGTH) - RADIUS - bufferY);
-	}
-
-	// Can be used from other classes, like PlayerInteractive, to figure
-	// out which space has been clicked on
-	public Location locationFromMouseCoordinates(double x, double y)
-	{
-		// Calculate row first
-		Point2D topLeftSpace = getSpaceCenter(0, 0);
-		double yTopMost = topLeftSpace.y() + TO_EDGE;
-		int row = (int) ((yTopMost - y) / (RADIUS + 0.5 * EDGE_LENGTH));
-
-		// Calculate column
-		Point2D leftMostSpaceInRow = getSpaceCenter(row, 0);
-		double xLeftMostInColumn = leftMostSpaceInRow.x() - TO_EDGE;
-		int col = (int) ((x - xLeftMostInColumn) / (2 * TO_EDGE));
-
-		if (row < 0 || row >= rows || col < 0 || col >= columns)
-		{
-			return null;
-		}
-
-		// If click is too far from the center, it could be misinterpreted, since
-		// the spaces are not perfect squares.  Throw away boundary clicks
-		Point2D clickedSpaceCenter = getSpaceCenter(row, col);
-		if (clickedSpaceCenter.distanceTo(new Point2D(x, y)) >= TO_EDGE)
-		{
-			return null;
-		}
-
-		return new Location(row, col);
-	}
-
-
-	private void drawSpace(int row, int column)
-	{
-		Point2D center = getSpaceCenter(row, column);
-		double[] xs = new double[6];
-		double[] ys = new double[6];
-		for (int i=0; i < 6; i++)
-		{
-			xs[i] = center.x() + spaceXOffsets[i];
-			ys[i] = center.y() + spaceYOffsets[i];
-		}
-
-		StdDraw.setPenColor(getFillColor(row, column));
-		StdDraw.filledPolygon(xs, ys);
-
-		StdDraw.setPenColor(Color.BLACK);
-		StdDraw.polygon(xs, ys);
-
-		// Add a glyph to indicate whether the space is connected
-		int playerConnection = board.getSideConnection(new Location(row, column));
-		if (playerConnection == Board.PLAYER_NONE)
-		{
-			return;
-		}
-
-		Color connectionGlyphColor = CONNECTION_GLYPH_COLORS[playerConnection];
-		StdDraw.setPenColor(connectionGlyphColor);
-		StdDraw.filledCircle(center.x(), center.y(), RADIUS / 4);
-	}
-
-	private Color getFillColor(int row, int column)
-	{
-		return FILL_COLORS[board.getPlayer(new Location(row, column))];
-	}
-
-	public void placeInitialPieces(In in)
-	{
-		Scanner console = new Scanner(System.in);
-
-		drawBoard();
-
-		// This variable indicates which line of the test file is being
-		// sent to your setPlayer method.  You may find this variable
-		// useful when creating breakpoints that are hit when a certain
-		// line of the test file is read.
-		// (Starting at line 2, since line 1 was the board dimensions.)
-		int lineNumber = 2;
-
-		// repeatedly read in moves and draw resulting board
-		while (!in.isEmpty()) 
-		{
-			// Let the user step through the file by tapping enter
-			System.out.print("Press enter to apply line #" + lineNumber + "...");
-			console.nextLine();
-			
-			int row = in.readInt();
-			int col = in.readInt();
-			int player = in.readInt();
-			System.out.println("Adding to board: row=" + row + ", column=" + col + ", player=" + player);
-			board.setPlayer(new Location(row, col), player);
-			drawBoard();
-			lineNumber++;
-		}
-
-		initialPiecesPlaced = true;
-		drawBoard();
-	}
-
-	public void play(Player player1, Player player2)
-	{
-		// Set this to true, and the game will be recorded into a test file with the
-		// name "board-recorded.txt" located in the project directory in your workspace
-		final boolean record = false;
-
-		Out out = null;
-		if (record)
-		{
-			out = new Out("board-recorded.txt");
-			out.print(rows + " " + columns + "\n");
-		}
-
-		Player[] players = new Player[] { player1, player2 };
-
-		while (board.getCurrentWinner() == Board.PLAYER_NONE) 
-		{
-			Player player = players[curPlayer - 1];
-			
-			// Ask player for its move
-			Location nextMove = player.getNextMove(new Board(board), curPlayer);
-			
-			// Is the move legal?
-			int currentOccupant = board.getPlayer(nextMove);
-			if (currentOccupant != Board.PLAYER_NONE)
-			{
-				throw new UnsupportedOperationException("Player # " + curPlayer + " attempted an illegal move in row " +
-						nextMove.getRow() + ", column " + nextMove.getColumn() + 
-						", which is already occupied by player " + currentOccupant);
-			}
-
-			// Apply the move to the Board
-			board.setPlayer(nextMove, curPlayer);
-
-			if (record)
-			{
-				out.print(nextMove.getRow() + " " + nextMove.getColumn() + " " + curPlayer + "\n");
-			}
-
-			// Toggle to the next player
-			curPlayer = 3 - curPlayer;
-			
-			drawBoard();
-		}
-
-		if (record)
-		{
-			out.close();
-		}
-	}
-
-	public static void main(String[] args)
-	{
-		// HEY YOU!  Modify this string to read in other input files
-		In in = new In("testInput/board-11x11-empty.txt");
-
-		// Read in board size and create board
-		int rows = in.readInt();
-		int columns = in.readInt();
-		Board board = new Board(rows, columns);
-
-		GameManager gm = new GameManager(board);
-		
-		// Read and apply any moves from the input file
-		gm.placeInitialPieces(in);
-		in.close();
-
-		System.out.println("Finished reading input file");
-
-		// HEY YOU!  Modify the parameters to change who plays the game
-		gm.play(
-				new PlayerInteractive(gm),	// player 1
-				new PlayerInteractive(gm)	// player 2
-				);
-	}		
-}
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Frame;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.imageio.ImageIO;
+
+public class GameManager
+{
+	// Width of the canvas, measured in number of pixels.
+	private final int CANVAS_WIDTH_PIXELS = 1000;
+
+	// Distance from center of game piece to corner
+	private final double RADIUS = 1;
+
+	// Distance from center to midpoint of an edge
+	private final double TO_EDGE = RADIUS * Math.cos(Math.PI * 1.0 / 6.0);
+
+	// Length of each edge of each hexagon location
+	private final double EDGE_LENGTH = RADIUS * (Math.sin(Math.PI * 5.0 / 6.0) - Math.sin(Math.PI * 7.0 / 6.0));
+
+	// Height, in pixels, of the text that indicates the status (whose turn it is, or
+	// who won the game).
+	private static final int STATUS_TEXT_HEIGHT_PIXELS = 40;
+
+	// The board is never redrawn more often than this, however fast the
+	// players move; moves made in between are drawn together
+	private static final int MAX_FRAMES_PER_SECOND = 30;
+
+	// Colors of the dots inside the spaces which indicate whether the hexagon is connected to a side
+	// (Array indexed by player number.)
+	private static final Color[] CONNECTION_GLYPH_COLORS = {Color.BLACK, new Color(255, 100, 50), new Color(50, 250, 255)};
+
+	// Colors to paint the hexagon pieces
+	// (Array indexed by player number.)
+	private static final Color[] FILL_COLORS = {Color.LIGHT_GRAY, new Color(200, 0, 0), new Color(0, 0, 200)};
+
+	// If you only want to see the status text (whose turn it is), and the board is too
+	// big to draw efficiently, set this to false for faster run times
+	private final boolean DRAW_BOARD = true;
+
+	private final double[] spaceXOffsets;
+	private final double[] spaceYOffsets;
+
+	// Geometry of the spaces, computed once per board so drawing and hit
+	// testing do no allocation.  The center of space (row, col) is at
+	// x = rowCenterXs[row] + columnCenterXs[col], y = rowCenterYs[row].
+	private final double[] rowCenterXs;
+	private final double[] columnCenterXs;
+	private final double[] rowCenterYs;
+
+	// Vertex buffers shared by every call to drawSpace
+	private final double[] spaceVertexXs;
+	private final double[] spaceVertexYs;
+	private final double width;
+
+	private volatile boolean initialPiecesPlaced;
+	private double height;
+	private final double bufferX;
+	private final double bufferY;
+	private final double borderThickness; 
+
+	private final int rows;
+	private final int columns;
+
+	private final double statusTextX;
+	private final double statusTextY;
+
+	// The background, borders and labels never change, so they are only
+	// drawn once.  After that, each frame only repaints the spaces whose
+	// piece or connection glyph changed since they were last drawn
+	// (drawnSpaces holds what was drawn, or -1 for "not drawn yet"), and
+	// the status text if it changed.  The status text is erased by drawing
+	// a saved copy of the background behind it (statusBackgroundFile).
+	private boolean backgroundDrawn;
+	private final byte[] drawnSpaces;
+	private String drawnStatusText;
+	private String statusBackgroundFile;
+	private double statusBackgroundY;
+
+	private Board board;
+
+	// Either PLAYER_1 or PLAYER_2
+	private volatile int curPlayer;
+
+	// Under a time control, the time curPlayer had left when its turn
+	// began (or -1 with no clock), and the player who ran out of time
+	private volatile long curPlayerClockNanos = -1;
+	private volatile int lostOnTime = Board.PLAYER_NONE;
+
+	// Drawing happens on its own thread, so the game never waits for it.
+	// The render thread keeps its own copy of the board (drawnBoard), and
+	// the game loop hands it each move (as index * 4 + player) through
+	// pendingMoves.  Every frame, the render thread applies all the moves
+	// that arrived since the last one and draws the result once.  A whole
+	// new position (see showPosition) goes through the same queue, as
+	// SHOW_POSITION, so that it stays in order with the moves, with its
+	// pieces in shownPosition.  In headless mode there is no render thread
+	// and nothing is drawn.
+	private final boolean headless;
+	private final Board drawnBoard;
+	private final ConcurrentLinkedQueue<Integer> pendingMoves;
+	private static final int SHOW_POSITION = -1;
+	private volatile byte[] shownPosition;
+	private final AtomicBoolean frameRequested;
+	private final Thread renderThread;
+	private volatile boolean closed;
+
+	// Work for the render thread to do right after its next frame, such
+	// as saving the canvas (see saveImage)
+	private final ConcurrentLinkedQueue<Runnable> afterFrame = new ConcurrentLinkedQueue<Runnable>();
+
+	// The heatmap drawn over the empty spaces, or null for none; see
+	// showHeatmap
+	private volatile Heatmap heatmap;
+	private final AtomicBoolean heatmapChanged = new AtomicBoolean();
+
+	// Win probability of a move in each space (NaN for none) for the
+	// player to move, who the status text names while it is shown
+	private static class Heatmap
+	{
+		final double[] winProbabilities;
+		final int player;
+
+		Heatmap(double[] winProbabilities, int player)
+		{
+			this.winProbabilities = winProbabilities;
+			this.player = player;
+		}
+	}
+
+	// Constructs a GameManager that draws the specified Board in a window
+	public GameManager(Board board)
+	{
+		this(board, false);
+	}
+
+	// Constructs a GameManager for the specified Board.  A headless one
+	// never opens a window (StdDraw is not touched at all), so games run at
+	// the players' speed; it cannot be used with PlayerInteractive.
+	public GameManager(Board board, boolean headless)
+	{
+		initialPiecesPlaced = false;
+		this.headless = headless;
+
+		this.rows = board.getRows();
+		this.columns = board.getColumns();
+		this.board = board;
+		this.curPlayer = Board.PLAYER_1;
+
+		int biggerDim = Math.max(rows, columns);
+
+		width = getRowLeftBuffer(rows - 1) + (biggerDim + 1) * 2 * TO_EDGE - 1;
+		height = ((biggerDim + 2) / 2) * 2 * RADIUS + ((biggerDim + 1) / 2) * EDGE_LENGTH;
+
+		bufferX = (width * 0.5) / (TO_EDGE * 34 - 1);
+		bufferY = (height * 0.25) / ((TO_EDGE * 34 - 1) / 1.5);
+
+		int heightPixels = (int) (CANVAS_WIDTH_PIXELS * ( height / width )) + STATUS_TEXT_HEIGHT_PIXELS;
+		height = heightPixels * (width / CANVAS_WIDTH_PIXELS);
+		if (!headless)
+		{
+			StdDraw.setCanvasSize(CANVAS_WIDTH_PIXELS, heightPixels);
+			StdDraw.setXscale(0.0, width);
+			StdDraw.setYscale(0.0, height);
+			StdDraw.clear();
+			for (Frame frame : Frame.getFrames())
+			{
+				if (frame.isVisible())
+				{
+					frame.setTitle("Conhexion");
+				}
+			}
+		}
+
+		spaceXOffsets = new double[6];
+		spaceYOffsets = new double[6];
+
+		for (int i=0; i < 6; i++)
+		{
+			spaceXOffsets[i] = Math.cos((2 * i + 1) / 6.0 * Math.PI);
+			spaceYOffsets[i] = Math.sin((2 * i + 1) / 6.0 * Math.PI);
+		}
+
+		double lengthBasedThickness = EDGE_LENGTH * 0.75;
+		double constantThickness = (width * EDGE_LENGTH * 1.5) / (TO_EDGE * 34 - 1);
+
+		borderThickness = Math.max(lengthBasedThickness, constantThickness);
+
+		rowCenterXs = new double[rows];
+		rowCenterYs = new double[rows];
+		for (int row = 0; row < rows; row++)
+		{
+			rowCenterXs[row] = getRowLeftBuffer(row) + RADIUS + bufferX;
+			rowCenterYs[row] = height - row * (RADIUS + 0.5 * EDGE_LENGTH) - RADIUS - bufferY;
+		}
+		columnCenterXs = new double[columns];
+		for (int col = 0; col < columns; col++)
+		{
+			columnCenterXs[col] = col * (2 * TO_EDGE);
+		}
+		spaceVertexXs = new double[6];
+		spaceVertexYs = new double[6];
+
+		Point2D spaceNearStatusText = getSpaceCenter(rows - 1, 0);
+		statusTextX = spaceNearStatusText.x();
+		statusTextY = spaceNearStatusText.y() - RADIUS - borderThickness - 7 * (width / CANVAS_WIDTH_PIXELS);
+
+		drawnSpaces = new byte[rows * columns];
+		Arrays.fill(drawnSpaces, (byte) -1);
+
+		if (headless)
+		{
+			drawnBoard = null;
+			pendingMoves = null;
+			frameRequested = null;
+			renderThread = null;
+			return;
+		}
+
+		StdDraw.show(0);
+
+		drawnBoard = new Board(board);
+		pendingMoves = new ConcurrentLinkedQueue<Integer>();
+		frameRequested = new AtomicBoolean(true);
+		renderThread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				render();
+			}
+		}, "Conhexion renderer");
+		renderThread.setDaemon(true);
+		renderThread.start();
+	}
+
+	private double getRowLeftBuffer(int row)
+	{
+		return row * TO_EDGE;
+	}
+
+	// Body of the render thread: waits until a frame is requested, applies
+	// every move that has arrived, draws, and then sleeps for the rest of
+	// the frame so that frames are at most MAX_FRAMES_PER_SECOND apart
+	private void render()
+	{
+		long frameNanos = 1000000000L / MAX_FRAMES_PER_SECOND;
+		while (!closed)
+		{
+			while (!frameRequested.getAndSet(false))
+			{
+				if (closed)
+				{
+					return;
+				}
+				LockSupport.park(this);
+			}
+
+			long frameStart = System.nanoTime();
+			Integer move;
+			while ((move = pendingMoves.poll()) != null)
+			{
+				if (move == SHOW_POSITION)
+				{
+					drawnBoard.setAllPlayers(shownPosition);
+				}
+				else
+				{
+					drawnBoard.setPlayer(move >> 2, move & 3);
+				}
+			}
+			drawBoard();
+			if (Metrics.ENABLED)
+			{
+				Metrics.recordFrame(System.nanoTime() - frameStart);
+			}
+			Runnable task;
+			while ((task = afterFrame.poll()) != null)
+			{
+				task.run();
+			}
+
+			long remaining;
+			while ((remaining = frameStart + frameNanos - System.nanoTime()) > 0)
+			{
+				LockSupport.parkNanos(this, remaining);
+			}
+		}
+	}
+
+	// Asks the render thread to draw a new frame, without waiting for it
+	private void requestFrame()
+	{
+		if (headless)
+		{
+			return;
+		}
+		frameRequested.set(true);
+		LockSupport.unpark(renderThread);
+	}
+
+	// Shows, over each empty space, the chance that the specified player
+	// wins by moving there (as a number from 0 to 1, or NaN to leave the
+	// space as it is), shading the space from gray towards the player's
+	// color.  The array is indexed like the Board and must not be changed
+	// afterwards.  Replaces any heatmap shown before.
+	public void showHeatmap(double[] winProbabilities, int player)
+	{
+		heatmap = new Heatmap(winProbabilities, player);
+		heatmapChanged.set(true);
+		requestFrame();
+	}
+
+	// Replaces every piece on the board with those on the specified Board,
+	// which must be the same size, so that one window can show one
+	// position after another
+	public void showPosition(Board position)
+	{
+		if (position.getRows() != rows || position.getColumns() != columns)
+		{
+			throw new IllegalArgumentException("Cannot show a " + position.getRows() + "x" +
+					position.getColumns() + " position on a " + rows + "x" + columns + " board");
+		}
+		byte[] players = new byte[rows * columns];
+		for (int i = 0; i < players.length; i++)
+		{
+			players[i] = (byte) position.getPlayer(i);
+		}
+		board.setAllPlayers(players);
+		if (!headless)
+		{
+			shownPosition = players;
+			pendingMoves.add(SHOW_POSITION);
+			requestFrame();
+		}
+	}
+
+	// Saves what the window shows, once everything asked for so far has
+	// been drawn, to the specified image file (.png or .jpg), and waits
+	// until it has been saved
+	public void saveImage(final String fileName)
+	{
+		if (headless)
+		{
+			throw new IllegalStateException("A headless GameManager draws nothing to save");
+		}
+
+		FutureTask<Void> save = new FutureTask<Void>(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				StdDraw.save(fileName);
+			}
+		}, null);
+		afterFrame.add(save);
+		requestFrame();
+		try
+		{
+			save.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while saving " + fileName, e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Could not save " + fileName, e.getCause());
+		}
+	}
+
+	// Stops the render thread, after which nothing more is drawn, so that
+	// another GameManager can take over the window
+	public void close()
+	{
+		closed = true;
+		if (!headless)
+		{
+			LockSupport.unpark(renderThread);
+		}
+	}
+
+	// Stops the render thread, like close, and closes the window, so that
+	// a program that only drew to it can end by returning from main
+	public void closeWindow()
+	{
+		close();
+		if (!headless)
+		{
+			for (Frame frame : Frame.getFrames())
+			{
+				frame.dispose();
+			}
+		}
+	}
+
+	// Places a piece on the board and hands the move to the render thread
+	private void applyMove(Location location, int player)
+	{
+		board.setPlayer(location, player);
+		if (!headless)
+		{
+			pendingMoves.add(board.indexOf(location.getRow(), location.getColumn()) * 4 + player);
+			requestFrame();
+		}
+	}
+
+	// Draws drawnBoard.  Only ever called on the render thread.
+	private void drawBoard()
+	{
+		StdDraw.setPenRadius(0.008);
+		if (!backgroundDrawn)
+		{
+			drawBackground();
+			backgroundDrawn = true;
+		}
+
+		// A new heatmap means redrawing every space.  The flag is cleared
+		// before the heatmap is read, so one shown in between is not missed.
+		if (heatmapChanged.getAndSet(false))
+		{
+			Arrays.fill(drawnSpaces, (byte) -1);
+		}
+		Heatmap heat = heatmap;
+		if (DRAW_BOARD)
+		{
+			byte[] sideConnections = drawnBoard.getSideConnections();
+			int index = 0;
+			for (int row=0; row < rows; row++)
+			{
+				for (int col=0; col < columns; col++, index++)
+				{
+					int player = drawnBoard.getPlayer(index);
+					int playerConnection = sideConnections[index];
+					byte drawn = (byte) (player * 3 + playerConnection);
+					if (drawnSpaces[index] != drawn)
+					{
+						drawSpace(row, col, player, playerConnection);
+						if (heat != null && player == Board.PLAYER_NONE && !Double.isNaN(heat.winProbabilities[index]))
+						{
+							drawHeat(row, col, heat.winProbabilities[index], heat.player);
+						}
+						drawnSpaces[index] = drawn;
+					}
+				}
+			}
+		}
+
+		StdDraw.setPenColor(StdDraw.YELLOW);
+		StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 32));
+		// curPlayer can run ahead of drawnBoard for a frame, until the
+		// move that changed it is drawn in the next one.  A heatmap names
+		// the player it is for instead.
+		int playerToMove = heat != null ? heat.player : curPlayer;
+		String statusText = null;
+		int winner = drawnBoard.getCurrentWinner();
+		if (!initialPiecesPlaced)
+		{
+			statusText = "Placing initial pieces...";
+		}
+		else if (lostOnTime != Board.PLAYER_NONE)
+		{
+			statusText = "Winner: Player " + (3 - lostOnTime) + " (on time)";
+		}
+		else if (winner == Board.PLAYER_1)
+		{
+			statusText = "Winner: Player 1";
+		}
+		else if (winner == Board.PLAYER_2)
+		{
+			statusText = "Winner: Player 2";
+		}
+		else
+		{
+			statusText = "Ready player " + playerToMove;
+			long clockNanos = curPlayerClockNanos;
+			if (clockNanos >= 0)
+			{
+				statusText += " (" + GameClock.format(clockNanos) + " left)";
+			}
+		}
+
+		if (!statusText.equals(drawnStatusText))
+		{
+			if (statusBackgroundFile != null)
+			{
+				StdDraw.picture(width / 2, statusBackgroundY, statusBackgroundFile);
+			}
+			StdDraw.textLeft(statusTextX, statusTextY, statusText);
+			drawnStatusText = statusText;
+		}
+		StdDraw.show(0);
+	}
+
+	// Draws everything that never changes: the woodgrain, the borders and
+	// their labels.  Then saves the strip of it behind the status text, so
+	// that old status text can be painted over without redrawing the board.
+	private void drawBackground()
+	{
+		StdDraw.picture(width / 2, height / 2, "woodgrain.jpg", width * 1.25, height * 1.25);
+
+		if (DRAW_BOARD)
+		{
+			drawBorders();
+		}
+
+		int canvasHeightPixels = (int) Math.round(height * CANVAS_WIDTH_PIXELS / width);
+		double pixelsPerUnit = CANVAS_WIDTH_PIXELS / width;
+
+		// The strip runs from just above the status text to the bottom of the
+		// canvas, but never up into the bottom row of spaces
+		double lowestSpaceBottom = getSpaceCenter(rows - 1, 0).y() - RADIUS;
+		int stripTop = (int) Math.ceil(Math.max(
+				(height - statusTextY) * pixelsPerUnit - STATUS_TEXT_HEIGHT_PIXELS * 0.75,
+				(height - lowestSpaceBottom) * pixelsPerUnit + 4));
+		if (stripTop >= canvasHeightPixels)
+		{
+			return;
+		}
+
+		try
+		{
+			File canvas = File.createTempFile("conhexion-canvas", ".png");
+			canvas.deleteOnExit();
+			StdDraw.show(0);
+			StdDraw.save(canvas.getPath());
+			BufferedImage image = ImageIO.read(canvas);
+			canvas.delete();
+
+			BufferedImage strip = image.getSubimage(0, stripTop, image.getWidth(), image.getHeight() - stripTop);
+			File stripFile = File.createTempFile("conhexion-status", ".png");
+			stripFile.deleteOnExit();
+			ImageIO.write(strip, "png", stripFile);
+
+			statusBackgroundFile = stripFile.getPath();
+			statusBackgroundY = height - (stripTop + strip.getHeight() / 2.0) / pixelsPerUnit;
+		}
+		catch (IOException e)
+		{
+			// Without the saved strip, the status text is drawn over the old
+			// text; the game itself is unaffected
+			System.out.println("Could not save the status text background: " + e.getMessage());
+		}
+	}
+
+	private void drawBorders()
+	{
+		Point2D topLeftCenter = getSpaceCenter(0, 0);
+		Point2D topRightCenter = getSpaceCenter(0, columns - 1);
+		Point2D bottomLeftCenter = getSpaceCenter(rows - 1, 0);
+		Point2D bottomRightCenter = getSpaceCenter(rows - 1, columns - 1);
+
+		double labelOffset = RADIUS + borderThickness / 5;
+
+		{
+			// LEFT: Player 2 (BLUE)
+
+			double[] xPolygon = new double[rows * 2 + 2];
+			double[] yPolygon = new double [rows * 2 + 2];
+
+			for (int row = 0; row < rows; row++)
+			{
+				Point2D space = getSpaceCenter(row, 0);
+				xPolygon[row*2] = space.x() + spaceXOffsets[2];
+				yPolygon[row*2] = space.y() + spaceYOffsets[2];
+				xPolygon[row*2 + 1] = space.x() + spaceXOffsets[3];
+				yPolygon[row*2 + 1] = space.y() + spaceYOffsets[3];
+			}
+
+			xPolygon[rows*2] = bottomLeftCenter.x() + spaceXOffsets[3] - borderThickness;
+			yPolygon[rows*2] = bottomLeftCenter.y() + spaceYOffsets[3];
+			xPolygon[rows*2 + 1] = topLeftCenter.x() + spaceXOffsets[2] - borderThickness;
+			yPolygon[rows*2 + 1] = topLeftCenter.y() + spaceYOffsets[2];
+
+			StdDraw.setPenColor(FILL_COLORS[Board.PLAYER_2]);
+			StdDraw.filledPolygon(xPolygon, yPolygon);
+
+			// Row labels
+			StdDraw.setPenColor(StdDraw.WHITE);
+			StdDraw.setFont();
+			for (int row = 0; row < rows; row++)
+			{
+				Point2D space = getSpaceCenter(row, 0);
+				StdDraw.text(space.x() - labelOffset, space.y(), "" + row);
+			}
+		}
+
+		{
+			// RIGHT: Player 2 (BLUE)
+
+			double[] xPolygon = new double[rows * 2 + 2];
+			double[] yPolygon = new double [rows * 2 + 2];
+
+			for (int row = 0; row < rows; row++) 
+			{
+				Point2D space = getSpaceCenter(row, columns - 1);
+				xPolygon[row*2] = space.x() + spaceXOffsets[0];
+				yPolygon[row*2] = space.y() + spaceYOffsets[0];
+				xPolygon[row*2 + 1] = space.x() + spaceXOffsets[5];
+				yPolygon[row*2 + 1] = space.y() + spaceYOffsets[5];
+			}
+
+			xPolygon[rows*2] = bottomRightCenter.x() + spaceXOffsets[5] + borderThickness;
+			yPolygon[rows*2] = bottomRightCenter.y() + spaceYOffsets[5];
+			xPolygon[rows*2 + 1] = topRightCenter.x() + spaceXOffsets[0] + borderThickness;
+			yPolygon[rows*2 + 1] = topRightCenter.y() + spaceYOffsets[0];
+
+			StdDraw.setPenColor(FILL_COLORS[Board.PLAYER_2]);
+			StdDraw.filledPolygon(xPolygon, yPolygon);
+
+			// Row labels
+			StdDraw.setPenColor(StdDraw.WHITE);
+			StdDraw.setFont();
+			for (int row = 0; row < rows; row++)
+			{
+				Point2D space = getSpaceCenter(row, columns - 1);
+				StdDraw.text(space.x() + labelOffset, space.y(), "" + row);
+			}
+		}
+		{
+			// TOP: Player 1 (RED)
+
+			double[] xPolygon = new double[columns * 2 + 3];
+			double[] yPolygon = new double [columns * 2 + 3];
+
+			for (int col = 0; col < columns; col++)
+			{
+				Point2D space = getSpaceCenter(0, col);
+				xPolygon[col*2] = space.x() + spaceXOffsets[2];
+				yPolygon[col*2] = space.y() + spaceYOffsets[2];
+				xPolygon[col*2 + 1] = space.x() + spaceXOffsets[1];
+				yPolygon[col*2 + 1] = space.y() + spaceYOffsets[1];
+			}
+
+			xPolygon[columns*2] = topRightCenter.x() + spaceXOffsets[0];
+			yPolygon[columns*2] = topRightCenter.y() + spaceYOffsets[0];
+			xPolygon[columns*2 + 1] = topRightCenter.x() + spaceXOffsets[0];
+			yPolygon[columns*2 + 1] = topRightCenter.y() + spaceYOffsets[0] + borderThickness;
+			xPolygon[columns*2 + 2] = topLeftCenter.x() + spaceXOffsets[2];
+			yPolygon[columns*2 + 2] = topLeftCenter.y() + spaceYOffsets[2] + borderThickness;
+
+			StdDraw.setPenColor(FILL_COLORS[Board.PLAYER_1]);
+			StdDraw.filledPolygon(xPolygon, yPolygon);
+
+			// Column labels
+			StdDraw.setPenColor(StdDraw.WHITE);
+			StdDraw.setFont();
+			for (int col = 0; col < columns; col++)
+			{
+				Point2D space = getSpaceCenter(0, col);
+				StdDraw.text(space.x(), space.y() + labelOffset, "" + col);
+			}
+		}
+		{
+			// BOTTOM: Player 1 (RED)
+
+			double[] xPolygon = new double[columns * 2 + 3];
+			double[] yPolygon = new double [columns * 2 + 3];
+
+			for (int col = 0; col < columns; col++)
+			{
+				Point2D space = getSpaceCenter(rows - 1, col);
+				xPolygon[col*2] = space.x() + spaceXOffsets[3];
+				yPolygon[col*2] = space.y() + spaceYOffsets[3];
+				xPolygon[col*2 + 1] = space.x() + spaceXOffsets[4];
+				yPolygon[col*2 + 1] = space.y() + spaceYOffsets[4];
+			}
+
+			xPolygon[columns*2] = bottomRightCenter.x() + spaceXOffsets[5];
+			yPolygon[columns*2] = bottomRightCenter.y() + spaceYOffsets[5];
+			xPolygon[columns*2 + 1] = bottomRightCenter.x() + spaceXOffsets[5];
+			yPolygon[columns*2 + 1] = bottomRightCenter.y() + spaceYOffsets[5] - borderThickness;
+			xPolygon[columns*2 + 2] = bottomLeftCenter.x() + spaceXOffsets[3];
+			yPolygon[columns*2 + 2] = bottomLeftCenter.y() + spaceYOffsets[3] - borderThickness;
+
+			StdDraw.setPenColor(FILL_COLORS[Board.PLAYER_1]);
+			StdDraw.filledPolygon(xPolygon, yPolygon);
+
+			// Column labels
+			StdDraw.setPenColor(StdDraw.WHITE);
+			StdDraw.setFont();
+			for (int col = 0; col < columns; col++)
+			{
+				Point2D space = getSpaceCenter(rows - 1, col);
+				StdDraw.text(space.x(), space.y() - labelOffset, "" + col);
+			}
+		}
+	}
+
+	private Point2D getSpaceCenter(int row, int col)
+	{
+		return new Point2D(rowCenterXs[row] + columnCenterXs[col], rowCenterYs[row]);
+	}
+
+	// Can be used from other classes, like PlayerInteractive, to figure
+	// out which space has been clicked on
+	public Location locationFromMouseCoordinates(double x, double y)
+	{
+		int index = indexFromMouseCoordinates(x, y);
+		if (index < 0)
+		{
+			return null;
+		}
+		return new Location(index / columns, index % columns);
+	}
+
+	// Same as locationFromMouseCoordinates, but returns the index of the
+	// space (as returned by Board.indexOf), or -1 if no space is there.
+	// Allocates nothing, so it is cheap to call while polling the mouse.
+	public int indexFromMouseCoordinates(double x, double y)
+	{
+		// Rows and columns are axial coordinates of a pointy-top hex grid:
+		// the space centers are x = sqrt(3) * RADIUS * (col + row / 2) and
+		// y = 1.5 * RADIUS * row, measured right and down from space (0, 0).
+		// Invert that, then round to the nearest hex in cube coordinates.
+		double fractionalRow = (rowCenterYs[0] - y) / (RADIUS + 0.5 * EDGE_LENGTH);
+		double fractionalCol = (x - rowCenterXs[0]) / (2 * TO_EDGE) - fractionalRow / 2;
+		double fractionalThird = -fractionalRow - fractionalCol;
+
+		long row = Math.round(fractionalRow);
+		long col = Math.round(fractionalCol);
+		long third = Math.round(fractionalThird);
+		double rowError = Math.abs(row - fractionalRow);
+		double colError = Math.abs(col - fractionalCol);
+		double thirdError = Math.abs(third - fractionalThird);
+		if (rowError > colError && rowError > thirdError)
+		{
+			row = -col - third;
+		}
+		else if (colError > thirdError)
+		{
+			col = -row - third;
+		}
+
+		if (row < 0 || row >= rows || col < 0 || col >= columns)
+		{
+			return -1;
+		}
+		return (int) row * columns + (int) col;
+	}
+
+
+	private void drawSpace(int row, int column, int player, int playerConnection)
+	{
+		double centerX = rowCenterXs[row] + columnCenterXs[column];
+		double centerY = rowCenterYs[row];
+		double[] xs = spaceVertexXs;
+		double[] ys = spaceVertexYs;
+		for (int i=0; i < 6; i++)
+		{
+			xs[i] = centerX + spaceXOffsets[i];
+			ys[i] = centerY + spaceYOffsets[i];
+		}
+
+		StdDraw.setPenColor(FILL_COLORS[player]);
+		StdDraw.filledPolygon(xs, ys);
+
+		StdDraw.setPenColor(Color.BLACK);
+		StdDraw.polygon(xs, ys);
+
+		// Add a glyph to indicate whether the space is connected
+		if (playerConnection == Board.PLAYER_NONE)
+		{
+			return;
+		}
+
+		Color connectionGlyphColor = CONNECTION_GLYPH_COLORS[playerConnection];
+		StdDraw.setPenColor(connectionGlyphColor);
+		StdDraw.filledCircle(centerX, centerY, RADIUS / 4);
+	}
+
+	// Shades the empty space just drawn by drawSpace (whose vertices are
+	// still in the shared buffers) from gray towards the specified player's
+	// color by the player's win probability, and writes it as a percentage
+	// if the spaces are big enough to read it
+	private void drawHeat(int row, int column, double winProbability, int player)
+	{
+		Color from = FILL_COLORS[Board.PLAYER_NONE];
+		Color to = FILL_COLORS[player];
+		double t = Math.max(0, Math.min(1, winProbability));
+		StdDraw.setPenColor(new Color(
+				(int) Math.round(from.getRed() + (to.getRed() - from.getRed()) * t),
+				(int) Math.round(from.getGreen() + (to.getGreen() - from.getGreen()) * t),
+				(int) Math.round(from.getBlue() + (to.getBlue() - from.getBlue()) * t)));
+		StdDraw.filledPolygon(spaceVertexXs, spaceVertexYs);
+		StdDraw.setPenColor(Color.BLACK);
+		StdDraw.polygon(spaceVertexXs, spaceVertexYs);
+
+		int fontPixels = (int) (RADIUS * CANVAS_WIDTH_PIXELS / width * 0.6);
+		if (fontPixels >= 8)
+		{
+			StdDraw.setPenColor(t > 0.6 ? Color.WHITE : Color.BLACK);
+			StdDraw.setFont(new Font("SansSerif", Font.PLAIN, fontPixels));
+			StdDraw.text(rowCenterXs[row] + columnCenterXs[column], rowCenterYs[row],
+					String.valueOf((int) Math.round(winProbability * 100)));
+		}
+	}
+
+	// Treats the pieces that are already on the board (for example because
+	// it was loaded with BoardLoader) as the initial pieces
+	public void placeInitialPieces()
+	{
+		initialPiecesPlaced = true;
+		requestFrame();
+	}
+
+	// Reads moves from the specified input one line at a time, waiting
+	// for the user to press enter before applying each one
+	public void placeInitialPieces(In in)
+	{
+		Scanner console = new Scanner(System.in);
+
+		// This variable indicates which line of the test file is being
+		// sent to your setPlayer method.  You may find this variable
+		// useful when creating breakpoints that are hit when a certain
+		// line of the test file is read.
+		// (Starting at line 2, since line 1 was the board dimensions.)
+		int lineNumber = 2;
+
+		// repeatedly read in moves and draw resulting board
+		while (!in.isEmpty()) 
+		{
+			// Let the user step through the file by tapping enter
+			System.out.print("Press enter to apply line #" + lineNumber + "...");
+			console.nextLine();
+			
+			int row = in.readInt();
+			int col = in.readInt();
+			int player = in.readInt();
+			System.out.println("Adding to board: row=" + row + ", column=" + col + ", player=" + player);
+			applyMove(new Location(row, col), player);
+			lineNumber++;
+		}
+
+		initialPiecesPlaced = true;
+		requestFrame();
+	}
+
+	public void play(Player player1, Player player2)
+	{
+		play(player1, player2, null);
+	}
+
+	// Plays the game with a clock: each player has initialNanos for the
+	// whole game, plus incrementNanos for every move it makes, and loses
+	// if it runs out (see GameClock)
+	public void play(Player player1, Player player2, long initialNanos, long incrementNanos)
+	{
+		GameClock clock = new GameClock(initialNanos, incrementNanos);
+		try
+		{
+			play(player1, player2, clock);
+		}
+		finally
+		{
+			clock.close();
+		}
+	}
+
+	private void play(Player player1, Player player2, GameClock clock)
+	{
+		// Set this to true, and the game will be recorded into a test file with the
+		// name "board-recorded.txt" located in the project directory in your workspace
+		final boolean record = false;
+
+		Out out = null;
+		if (record)
+		{
+			out = new Out("board-recorded.txt");
+			out.print(rows + " " + columns + "\n");
+		}
+
+		// Set this to true, and the game will be appended to the binary game
+		// journal "games.hexj" located in the project directory in your workspace
+		// (see GameJournalWriter; read it back with GameJournalReader)
+		final boolean journal = false;
+
+		GameJournalWriter journalWriter = null;
+		if (journal)
+		{
+			try
+			{
+				journalWriter = new GameJournalWriter("games.hexj");
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			journalWriter.begin(board, player1.getClass().getSimpleName(),
+					player2.getClass().getSimpleName(), curPlayer);
+		}
+
+		Player[] players = new Player[] { player1, player2 };
+		int winner = Board.PLAYER_NONE;
+
+		while ((winner = board.getCurrentWinner()) == Board.PLAYER_NONE) 
+		{
+			Player player = players[curPlayer - 1];
+			
+			// Ask player for its move
+			Location nextMove;
+			long moveStart = System.nanoTime();
+			if (clock == null)
+			{
+				nextMove = player.getNextMove(board.snapshot(), curPlayer);
+			}
+			else
+			{
+				curPlayerClockNanos = clock.getRemainingNanos(curPlayer);
+				requestFrame();
+				nextMove = clock.getMove(player, board.snapshot(), curPlayer);
+				if (nextMove == null)
+				{
+					System.out.println("Player " + curPlayer + " ran out of time");
+					lostOnTime = curPlayer;
+					winner = 3 - curPlayer;
+					requestFrame();
+					break;
+				}
+			}
+			if (Metrics.ENABLED)
+			{
+				Metrics.recordMove(curPlayer, System.nanoTime() - moveStart);
+			}
+			
+			// Is the move legal?
+			int currentOccupant = board.getPlayer(nextMove);
+			if (currentOccupant != Board.PLAYER_NONE)
+			{
+				throw new UnsupportedOperationException("Player # " + curPlayer + " attempted an illegal move in row " +
+						nextMove.getRow() + ", column " + nextMove.getColumn() + 
+						", which is already occupied by player " + currentOccupant);
+			}
+
+			// Apply the move to the Board
+			applyMove(nextMove, curPlayer);
+
+			if (record)
+			{
+				out.print(nextMove.getRow() + " " + nextMove.getColumn() + " " + curPlayer + "\n");
+			}
+
+			if (journal)
+			{
+				journalWriter.move(board.indexOf(nextMove.getRow(), nextMove.getColumn()));
+			}
+
+			// Toggle to the next player
+			curPlayer = 3 - curPlayer;
+		}
+
+		if (record)
+		{
+			out.close();
+		}
+
+		if (journal)
+		{
+			try
+			{
+				journalWriter.end(winner);
+				journalWriter.close();
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		// HEY YOU!  Modify this string to read in other input files
+		String fileName = "testInput/board-11x11-empty.txt";
+
+		// HEY YOU!  Set this to true to step through the input file one line
+		// at a time, pressing enter to apply each move (handy for debugging)
+		final boolean stepThrough = false;
+
+		// HEY YOU!  Set this to true to play without a window, at full speed
+		// (only for automated players; PlayerInteractive needs the window)
+		final boolean headless = false;
+
+		// HEY YOU!  Set this to the number of seconds each player gets for
+		// the whole game (0 for no clock), and the seconds added per move
+		final double clockSeconds = 0;
+		final double incrementSeconds = 0;
+
+		GameManager gm;
+		if (stepThrough)
+		{
+			In in = new In(fileName);
+
+			// Read in board size and create board
+			int rows = in.readInt();
+			int columns = in.readInt();
+			Board board = new Board(rows, columns);
+
+			gm = new GameManager(board, headless);
+
+			// Read and apply any moves from the input file
+			gm.placeInitialPieces(in);
+			in.close();
+		}
+		else
+		{
+			// Read the whole file into the board at once
+			long start = System.nanoTime();
+			Board board = BoardLoader.load(fileName);
+			System.out.printf("Loaded %s in %.2f ms%n", fileName, (System.nanoTime() - start) / 1e6);
+
+			gm = new GameManager(board, headless);
+			gm.placeInitialPieces();
+		}
+
+		System.out.println("Finished reading input file");
+
+		// HEY YOU!  Modify the parameters to change who plays the game
+		Player player1 = new PlayerInteractive(gm);
+		Player player2 = new PlayerInteractive(gm);
+		if (clockSeconds > 0)
+		{
+			gm.play(player1, player2, (long) (clockSeconds * 1e9), (long) (incrementSeconds * 1e9));
+		}
+		else
+		{
+			gm.play(player1, player2);
+		}
+	}		
+}
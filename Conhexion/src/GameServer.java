@@ -0,0 +1,262 @@
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hosts any number of games at once between programs that connect over
+// TCP (on the loopback address only), for running bot-vs-bot ladders.
+// Every connection waits in a lobby until it is paired with the next one
+// to arrive; the pair plays a Match, and both go back into the lobby until
+// they disconnect.  Whoever joined first is player 1 in odd-numbered games
+// and player 2 in even-numbered ones, so that a pair playing rematches
+// takes turns having the first move.  Every game starts from the same
+// position, with the player due to move there (see BoardLoader.playerToMove)
+// to move.  Each game runs on its own thread: a virtual thread
+// where the JVM has them (Java 21 and later), so thousands of games cost
+// little more than their Boards, or a pooled platform thread otherwise.
+//
+// The protocol is plain text, one message per line:
+//
+//   client: HELLO <name>                     first line after connecting
+//   server: START <rows> <columns> <player>  a game is starting; you are
+//                                            player 1 or 2
+//   server: PLAYED <row> <column> <player>   a piece is on the board (sent
+//                                            for the starting pieces too)
+//   server: YOURMOVE                         your turn
+//   client: MOVE <row> <column>              your move
+//   server: ILLEGAL <reason>                 your move was refused, and
+//                                            you lose the game
+//   server: END <winner>                     the game is over; 0 if it
+//                                            ended without a result
+//
+// A client that sends an illegal move, takes longer than MOVE_TIMEOUT_MILLIS
+// to answer or disconnects loses the game and is dropped.  A game that
+// fails for any other reason, such as a bug in the server, ends without a
+// result rather than counting against either player.  GameClient connects
+// any Player to a server.
+//
+// Usage: java GameServer [port] [board file]
+public class GameServer
+{
+	static final int DEFAULT_PORT = 7341;
+
+	private static final int MOVE_TIMEOUT_MILLIS = 60000;
+
+	private final ServerSocket serverSocket;
+	private final Board start;
+	private final int startPlayer;
+	private final ExecutorService executor;
+	private final BlockingQueue<RemotePlayer> lobby = new LinkedBlockingQueue<RemotePlayer>();
+
+	private final AtomicLong gamesStarted = new AtomicLong();
+	private final AtomicLong gamesFinished = new AtomicLong();
+	private final AtomicLong gamesWithoutResult = new AtomicLong();
+
+	// Listens on the specified port for players, and starts every game
+	// from the position on the specified Board
+	public GameServer(int port, Board start) throws IOException
+	{
+		this.serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		this.start = start;
+		this.startPlayer = BoardLoader.playerToMove(start);
+		this.executor = newThreadPerTaskExecutor();
+	}
+
+	// Accepts connections and pairs players up until the server is closed
+	public void run() throws IOException
+	{
+		Thread matchmaker = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				pairPlayers();
+			}
+		}, "GameServer matchmaker");
+		matchmaker.setDaemon(true);
+		matchmaker.start();
+
+		while (!serverSocket.isClosed())
+		{
+			final Socket socket = serverSocket.accept();
+			executor.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					greet(socket);
+				}
+			});
+		}
+	}
+
+	// Stops accepting connections.  Games in progress are abandoned.
+	public void close() throws IOException
+	{
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+
+	// Returns the number of games that have finished
+	public long getGamesFinished()
+	{
+		return gamesFinished.get();
+	}
+
+	// Returns the number of finished games that ended without a result,
+	// because something other than a player went wrong
+	public long getGamesWithoutResult()
+	{
+		return gamesWithoutResult.get();
+	}
+
+	// Reads the HELLO of a new connection and puts it in the lobby
+	private void greet(Socket socket)
+	{
+		try
+		{
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(MOVE_TIMEOUT_MILLIS);
+			RemotePlayer player = new RemotePlayer(socket);
+			System.out.println(player.getName() + " joined from " + socket.getRemoteSocketAddress());
+			lobby.add(player);
+		}
+		catch (IOException e)
+		{
+			System.out.println("Refused " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+		}
+	}
+
+	private void pairPlayers()
+	{
+		try
+		{
+			while (true)
+			{
+				final RemotePlayer player1 = lobby.take();
+				final RemotePlayer player2 = lobby.take();
+				executor.execute(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						playGame(player1, player2);
+					}
+				});
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Plays a game between the specified players, the first of whom joined
+	// the lobby first
+	private void playGame(RemotePlayer first, RemotePlayer second)
+	{
+		long game = gamesStarted.incrementAndGet();
+		RemotePlayer player1 = game % 2 == 1 ? first : second;
+		RemotePlayer player2 = game % 2 == 1 ? second : first;
+		Match match = new Match(new Board(start), player1, player2, null, startPlayer);
+		int winner;
+		String result;
+		try
+		{
+			player1.startGame(match.getBoard(), Board.PLAYER_1);
+			player2.startGame(match.getBoard(), Board.PLAYER_2);
+			winner = match.play();
+			result = "won";
+		}
+		catch (RuntimeException e)
+		{
+			// Whoever broke the rules or went away forfeits.  If neither
+			// did, the fault is not theirs, and nobody wins.
+			if (player1.hasFailed() != player2.hasFailed())
+			{
+				winner = player1.hasFailed() ? Board.PLAYER_2 : Board.PLAYER_1;
+				result = "won by forfeit (" + e.getMessage() + ")";
+			}
+			else
+			{
+				winner = Board.PLAYER_NONE;
+				result = "ended without a result (" + e + ")";
+			}
+		}
+
+		// Back into the lobby in the order they joined, so that a pair that
+		// plays again swaps seats
+		finishGame(first, match.getBoard(), winner);
+		finishGame(second, match.getBoard(), winner);
+		gamesFinished.incrementAndGet();
+		if (winner == Board.PLAYER_NONE)
+		{
+			gamesWithoutResult.incrementAndGet();
+			System.out.println("Game " + game + ": " + player1.getName() + " vs " + player2.getName() + " " +
+					result + " after " + match.getMoveCount() + " moves");
+		}
+		else
+		{
+			System.out.println("Game " + game + ": " + player1.getName() + " vs " + player2.getName() + ", " +
+					(winner == Board.PLAYER_1 ? player1 : player2).getName() + " " + result +
+					" after " + match.getMoveCount() + " moves");
+		}
+	}
+
+	// Tells a player how the game ended, and puts it back in the lobby if
+	// it is still in good standing
+	private void finishGame(RemotePlayer player, Board board, int winner)
+	{
+		try
+		{
+			player.endGame(board, winner);
+		}
+		catch (RuntimeException e)
+		{
+			// Failed while being told the result; dropped below
+		}
+
+		if (player.hasFailed())
+		{
+			player.close();
+		}
+		else
+		{
+			lobby.add(player);
+		}
+	}
+
+	// Returns an executor that runs every task on a new virtual thread if
+	// this JVM supports them, and on a cached thread pool if not.
+	// Looked up by reflection, since the project still builds for Java 8.
+	private static ExecutorService newThreadPerTaskExecutor()
+	{
+		try
+		{
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			System.out.println("Running games on virtual threads");
+			return (ExecutorService) method.invoke(null);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			System.out.println("Virtual threads need Java 21 or later; running games on platform threads");
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		Board start = args.length > 1 ? BoardLoader.load(args[1]) : new Board(11, 11);
+
+		GameServer server = new GameServer(port, start);
+		System.out.println("Hosting " + start.getRows() + "x" + start.getColumns() + " games on port " + port);
+		server.run();
+	}
+}
@@ -0,0 +1,368 @@
+import java.util.Arrays;
+
+// Finds the empty spaces of a position that are not worth playing in, so
+// that a search only has to try the others.
+//
+// Whether a space matters is decided by the six spaces around it, read in
+// order around the ring (an edge of the board counts as a piece of the
+// player who owns it).  For a player, a piece in the space is useless if
+// every two ring spaces the player could use are already joined around the
+// ring through that player's own pieces: any connection through the space
+// can then go around it.  A space that is useless to the opponent is
+// captured by the player, who can fill it without losing anything; a space
+// that is useless to both players is dead, and can be filled by either.
+// There are 3^6 possible rings, so both answers are worked out once for
+// every one of them and looked up in a table.
+//
+// Two adjacent empty spaces are a captured pair if, when either is filled
+// by a player, the other becomes useless to the opponent: the player can
+// answer the opponent's move in one with a move in the other, so the
+// player may as well own both.
+//
+// analyze fills in every dead and captured space it finds on a copy of the
+// position, which can create new dead and captured spaces around them, and
+// keeps going until there are no more.  It keeps the ring pattern of every
+// space up to date as it fills, and only looks again at the spaces around
+// the ones it filled, so it costs little more than one look at each space.
+// The empty spaces that are left are the candidate moves: filling in never
+// changes who wins, so the best move is always one of them (or any move at
+// all, if the filled-in position is already decided).
+public class InferiorCells
+{
+	// What analyze found a space to be
+	public static final int USEFUL = 0;
+	public static final int DEAD = 1;
+	public static final int CAPTURED_BY_1 = 2;
+	public static final int CAPTURED_BY_2 = 3;
+
+	// Row and column offsets of the six neighbors of a space, in order
+	// around the ring, each one adjacent to the next
+	private static final int[] RING_ROW_OFFSETS = {0, -1, -1, 0, 1, 1};
+	private static final int[] RING_COLUMN_OFFSETS = {1, 1, 0, -1, -1, 0};
+
+	// Flags of the pattern table, which is indexed by the sum of
+	// color * 3^position over the ring (color 0 for an empty space)
+	private static final byte USELESS_TO_1 = 1;
+	private static final byte USELESS_TO_2 = 2;
+	private static final byte[] PATTERNS = buildPatterns();
+
+	// For each player and pattern, the empty ring positions that would make
+	// the pattern useless to the opponent if the player filled them, as bits
+	private static final byte[][] PAIR_POSITIONS = buildPairPositions();
+
+	private static final int[] POWERS_OF_3 = {1, 3, 9, 27, 81, 243};
+
+	private final int rows;
+	private final int columns;
+	private final int spaces;
+
+	// The ring of every space: six board indices, or -Board.PLAYER_1 or
+	// -Board.PLAYER_2 for an edge of the board owned by that player
+	private final int[] rings;
+
+	// The position being filled in, the pattern table index of every ring,
+	// and what each space was found to be
+	private final byte[] colors;
+	private final int[] patterns;
+	private final byte[] kinds;
+	private int inferiorCount;
+
+	// Empty spaces still to be looked at
+	private final int[] pending;
+	private final boolean[] isPending;
+	private int pendingCount;
+
+	// Constructs an analyzer for boards of the specified size
+	public InferiorCells(int rows, int columns)
+	{
+		this.rows = rows;
+		this.columns = columns;
+		this.spaces = rows * columns;
+		rings = new int[spaces * 6];
+		colors = new byte[spaces];
+		patterns = new int[spaces];
+		kinds = new byte[spaces];
+		pending = new int[spaces];
+		isPending = new boolean[spaces];
+
+		for (int i = 0; i < spaces; i++)
+		{
+			for (int position = 0; position < 6; position++)
+			{
+				int row = i / columns + RING_ROW_OFFSETS[position];
+				int column = i % columns + RING_COLUMN_OFFSETS[position];
+				int neighbor;
+				if (row < 0 || row >= rows)
+				{
+					neighbor = -Board.PLAYER_1;
+				}
+				else if (column < 0 || column >= columns)
+				{
+					neighbor = -Board.PLAYER_2;
+				}
+				else
+				{
+					neighbor = row * columns + column;
+				}
+				rings[i * 6 + position] = neighbor;
+			}
+		}
+	}
+
+	// Finds the dead and captured spaces of the position on the specified
+	// Board, replacing what was found for the last position analyzed
+	public void analyze(Board board)
+	{
+		if (board.getRows() != rows || board.getColumns() != columns)
+		{
+			throw new IllegalArgumentException("Expected a " + rows + "x" + columns + " board, not " +
+					board.getRows() + "x" + board.getColumns());
+		}
+
+		for (int i = 0; i < spaces; i++)
+		{
+			colors[i] = (byte) board.getPlayer(i);
+		}
+		Arrays.fill(kinds, (byte) USEFUL);
+		inferiorCount = 0;
+
+		pendingCount = 0;
+		for (int i = spaces - 1; i >= 0; i--)
+		{
+			if (colors[i] == Board.PLAYER_NONE)
+			{
+				patterns[i] = ringOf(i);
+				pending[pendingCount++] = i;
+				isPending[i] = true;
+			}
+		}
+
+		while (pendingCount > 0)
+		{
+			int cell = pending[--pendingCount];
+			isPending[cell] = false;
+			if (colors[cell] == Board.PLAYER_NONE && !fillSingle(cell))
+			{
+				fillPair(cell);
+			}
+		}
+	}
+
+	// Returns what the last analyze found the specified space to be:
+	// USEFUL (which includes spaces that were not empty), DEAD,
+	// CAPTURED_BY_1 or CAPTURED_BY_2
+	public int getKind(int index)
+	{
+		return kinds[index];
+	}
+
+	// Returns the number of empty spaces the last analyze filled in
+	public int getInferiorCount()
+	{
+		return inferiorCount;
+	}
+
+	// Returns the board indices of the moves worth trying in the position
+	// last analyzed: the empty spaces that were not filled in, or every
+	// empty space if that leaves none
+	public int[] getCandidateMoves(Board board)
+	{
+		int[] moves = new int[spaces];
+		int count = 0;
+		for (int i = 0; i < spaces; i++)
+		{
+			if (colors[i] == Board.PLAYER_NONE)
+			{
+				moves[count++] = i;
+			}
+		}
+		if (count == 0)
+		{
+			for (int i = 0; i < spaces; i++)
+			{
+				if (board.getPlayer(i) == Board.PLAYER_NONE)
+				{
+					moves[count++] = i;
+				}
+			}
+		}
+		return Arrays.copyOf(moves, count);
+	}
+
+	// Analyzes the position on the specified Board and returns its
+	// candidate moves
+	public int[] findCandidateMoves(Board board)
+	{
+		analyze(board);
+		return getCandidateMoves(board);
+	}
+
+	// Fills in the specified empty space if its ring alone shows it is dead
+	// or captured.  Returns whether it did.
+	private boolean fillSingle(int cell)
+	{
+		int pattern = PATTERNS[patterns[cell]];
+		if (pattern == (USELESS_TO_1 | USELESS_TO_2))
+		{
+			fill(cell, Board.PLAYER_1, DEAD);
+		}
+		else if (pattern == USELESS_TO_2)
+		{
+			fill(cell, Board.PLAYER_1, CAPTURED_BY_1);
+		}
+		else if (pattern == USELESS_TO_1)
+		{
+			fill(cell, Board.PLAYER_2, CAPTURED_BY_2);
+		}
+		else
+		{
+			return false;
+		}
+		return true;
+	}
+
+	// Fills in the specified empty space and an empty neighbor if they are
+	// a captured pair.  Returns whether it did.
+	private boolean fillPair(int cell)
+	{
+		for (int player = Board.PLAYER_1; player <= Board.PLAYER_2; player++)
+		{
+			int positions = PAIR_POSITIONS[player][patterns[cell]];
+			for (int position = 0; positions != 0; position++, positions >>>= 1)
+			{
+				if ((positions & 1) == 0)
+				{
+					continue;
+				}
+
+				// The ring of a neighbor at position p has this space at p + 3
+				int other = rings[cell * 6 + position];
+				if (other >= 0 && colors[other] == Board.PLAYER_NONE &&
+						(PAIR_POSITIONS[player][patterns[other]] & (1 << (position + 3) % 6)) != 0)
+				{
+					int kind = player == Board.PLAYER_1 ? CAPTURED_BY_1 : CAPTURED_BY_2;
+					fill(cell, player, kind);
+					fill(other, player, kind);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	// Fills in the specified space, updates the patterns of the spaces
+	// around it, and puts them back on the list to be looked at
+	private void fill(int cell, int player, int kind)
+	{
+		colors[cell] = (byte) player;
+		kinds[cell] = (byte) kind;
+		inferiorCount++;
+
+		for (int position = 0; position < 6; position++)
+		{
+			int neighbor = rings[cell * 6 + position];
+			if (neighbor >= 0 && colors[neighbor] == Board.PLAYER_NONE)
+			{
+				patterns[neighbor] += player * POWERS_OF_3[(position + 3) % 6];
+				if (!isPending[neighbor])
+				{
+					pending[pendingCount++] = neighbor;
+					isPending[neighbor] = true;
+				}
+			}
+		}
+	}
+
+	// Returns the pattern table index of the ring of the specified space
+	private int ringOf(int cell)
+	{
+		int pattern = 0;
+		for (int position = 5; position >= 0; position--)
+		{
+			int neighbor = rings[cell * 6 + position];
+			pattern = pattern * 3 + (neighbor < 0 ? -neighbor : colors[neighbor]);
+		}
+		return pattern;
+	}
+
+	private static byte[] buildPatterns()
+	{
+		byte[] patterns = new byte[729];
+		int[] ring = new int[6];
+		for (int pattern = 0; pattern < patterns.length; pattern++)
+		{
+			for (int position = 0, rest = pattern; position < 6; position++, rest /= 3)
+			{
+				ring[position] = rest % 3;
+			}
+			if (isUseless(ring, Board.PLAYER_1))
+			{
+				patterns[pattern] |= USELESS_TO_1;
+			}
+			if (isUseless(ring, Board.PLAYER_2))
+			{
+				patterns[pattern] |= USELESS_TO_2;
+			}
+		}
+		return patterns;
+	}
+
+	private static byte[][] buildPairPositions()
+	{
+		byte[][] positions = new byte[3][PATTERNS.length];
+		for (int player = Board.PLAYER_1; player <= Board.PLAYER_2; player++)
+		{
+			byte uselessToOpponent = player == Board.PLAYER_1 ? USELESS_TO_2 : USELESS_TO_1;
+			for (int pattern = 0; pattern < PATTERNS.length; pattern++)
+			{
+				for (int position = 0, power = 1; position < 6; position++, power *= 3)
+				{
+					if ((pattern / power) % 3 == Board.PLAYER_NONE &&
+							(PATTERNS[pattern + player * power] & uselessToOpponent) != 0)
+					{
+						positions[player][pattern] |= 1 << position;
+					}
+				}
+			}
+		}
+		return positions;
+	}
+
+	// Returns whether a piece of the specified player in the middle of the
+	// specified ring would be useless to that player: every two ring
+	// positions the player could pass through are joined one way or the
+	// other around the ring by the player's own pieces
+	private static boolean isUseless(int[] ring, int player)
+	{
+		int opponent = 3 - player;
+		for (int from = 0; from < 6; from++)
+		{
+			if (ring[from] == opponent)
+			{
+				continue;
+			}
+			for (int to = from + 1; to < 6; to++)
+			{
+				if (ring[to] != opponent && !joined(ring, from, to, player) && !joined(ring, to, from + 6, player))
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// Returns whether every ring position strictly between from and to,
+	// going forwards, holds a piece of the specified player
+	private static boolean joined(int[] ring, int from, int to, int player)
+	{
+		for (int position = from + 1; position < to; position++)
+		{
+			if (ring[position % 6] != player)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,140 @@
+import java.util.Arrays;
+
+// Plays one game between two Players without drawing anything, enforcing
+// the same rules as GameManager.play, and records how long each move took.
+// Used wherever games need to run at engine speed, such as Tournament.
+// A match can be played with a GameClock, in which case a player that runs
+// out of time loses.
+public class Match
+{
+	private final Board board;
+	private final Player[] players;
+	private final GameClock clock;
+
+	private int curPlayer;
+	private int lostOnTime;
+	private int moveCount;
+	private int[] moves;
+	private long[] moveNanos;
+
+	// Constructs a match that continues the game on the specified Board,
+	// which the match plays on directly, with player 1 to move
+	public Match(Board board, Player player1, Player player2)
+	{
+		this(board, player1, player2, null);
+	}
+
+	// Constructs a match like the one above, played with the specified
+	// GameClock (or with no time limit, if it is null)
+	public Match(Board board, Player player1, Player player2, GameClock clock)
+	{
+		this(board, player1, player2, clock, Board.PLAYER_1);
+	}
+
+	// Constructs a match like the one above, with the specified player to
+	// move first, for games that continue from a position where it is
+	// player 2's turn
+	public Match(Board board, Player player1, Player player2, GameClock clock, int playerToMove)
+	{
+		this.board = board;
+		this.players = new Player[] { player1, player2 };
+		this.clock = clock;
+		this.curPlayer = playerToMove;
+		this.moves = new int[16];
+		this.moveNanos = new long[16];
+	}
+
+	// Plays the game until someone wins, and returns the winner.  With a
+	// clock, that includes winning because the other player ran out of time.
+	public int play()
+	{
+		while (board.getCurrentWinner() == Board.PLAYER_NONE)
+		{
+			Player player = players[curPlayer - 1];
+
+			// Ask player for its move
+			long start = System.nanoTime();
+			Location nextMove = clock == null
+					? player.getNextMove(board.snapshot(), curPlayer)
+					: clock.getMove(player, board.snapshot(), curPlayer);
+			long elapsed = System.nanoTime() - start;
+			if (Metrics.ENABLED)
+			{
+				Metrics.recordMove(curPlayer, elapsed);
+			}
+
+			if (nextMove == null && clock != null)
+			{
+				lostOnTime = curPlayer;
+				return 3 - curPlayer;
+			}
+
+			// Is the move legal?
+			if (nextMove == null)
+			{
+				throw new UnsupportedOperationException("Player # " + curPlayer + " did not return a move");
+			}
+			int currentOccupant = board.getPlayer(nextMove);
+			if (currentOccupant != Board.PLAYER_NONE)
+			{
+				throw new UnsupportedOperationException("Player # " + curPlayer + " attempted an illegal move in row " +
+						nextMove.getRow() + ", column " + nextMove.getColumn() +
+						", which is already occupied by player " + currentOccupant);
+			}
+
+			// Apply the move to the Board
+			board.setPlayer(nextMove, curPlayer);
+			record(board.indexOf(nextMove.getRow(), nextMove.getColumn()), elapsed);
+
+			// Toggle to the next player
+			curPlayer = 3 - curPlayer;
+		}
+
+		return board.getCurrentWinner();
+	}
+
+	// Returns the player who lost by running out of time, or PLAYER_NONE
+	// if the game was decided on the board
+	public int getLostOnTime()
+	{
+		return lostOnTime;
+	}
+
+	// Returns the Board the game is played on
+	public Board getBoard()
+	{
+		return board;
+	}
+
+	// Returns the number of moves played so far
+	public int getMoveCount()
+	{
+		return moveCount;
+	}
+
+	// Returns the board index of the specified move (0 is the first move
+	// played by this match, made by the player to move when it started)
+	public int getMove(int move)
+	{
+		return moves[move];
+	}
+
+	// Returns how long, in nanoseconds, the player took to choose the
+	// specified move
+	public long getMoveNanos(int move)
+	{
+		return moveNanos[move];
+	}
+
+	private void record(int move, long nanos)
+	{
+		if (moveCount == moves.length)
+		{
+			moves = Arrays.copyOf(moves, moveCount * 2);
+			moveNanos = Arrays.copyOf(moveNanos, moveCount * 2);
+		}
+		moves[moveCount] = move;
+		moveNanos[moveCount] = nanos;
+		moveCount++;
+	}
+}
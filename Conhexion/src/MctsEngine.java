@@ -0,0 +1,450 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Monte Carlo Tree Search (UCT) engine.  All search threads share one tree
+// of MctsNodes ("tree parallelism"); nodes are updated with atomic
+// operations and threads are kept apart by virtual loss, so there are no
+// locks anywhere on the search path.  Each thread walks down the tree on
+// its own copy of the Board using makeMove/undoMove, finishes the game
+// with a PlayoutKernel, and reports the result back up the path.
+//
+// With pondering turned on, the engine does not sit idle while the opponent
+// thinks: after choosing a move it goes on searching the position that
+// move leads to, which spends most of its effort on the replies it expects.
+// The next search stops pondering, works out which reply was actually
+// played, and carries on from that part of the tree instead of starting
+// over, so the work done on the opponent's time is not lost.
+//
+// Nodes only get the moves InferiorCells finds worth trying, so dead and
+// captured spaces take none of the tree's playouts.  The playouts
+// themselves still play anywhere.
+public class MctsEngine
+{
+	// Weight of the exploration term in the UCT formula
+	private static final double EXPLORATION = 0.5;
+
+	// Number of visits a move needs before the position after it gets
+	// a node of its own
+	private static final int EXPANSION_THRESHOLD = 8;
+
+	private final int threads;
+	private final long playoutBudget;
+
+	// The search threads, or null if searches run on the caller's thread
+	private final ExecutorService executor;
+
+	// Playouts started and finished by the current search
+	private final AtomicLong playouts = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private volatile boolean stopped;
+	private volatile long budget;
+	private volatile long deadlineNanos;
+
+	private MctsNode root;
+	private long lastPlayouts;
+	private long lastReusedPlayouts;
+	private long lastElapsedNanos;
+
+	// While pondering: the position after the engine's last move, its
+	// node, the player to move there, and the search threads' tasks
+	private boolean pondering;
+	private Board ponderBoard;
+	private MctsNode ponderRoot;
+	private int ponderPlayer;
+	private List<Future<Void>> ponderTasks;
+
+	// Constructs an engine that searches with the specified number of
+	// threads, running the specified number of playouts per search
+	public MctsEngine(int threads, long playoutBudget)
+	{
+		if (threads < 1)
+		{
+			throw new IllegalArgumentException("An engine needs at least one thread, not " + threads);
+		}
+
+		this.threads = threads;
+		this.playoutBudget = playoutBudget;
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "MctsEngine");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	// Constructs an engine that has no threads of its own, and searches on
+	// the thread that calls search, running the specified number of
+	// playouts per search.  For callers that already run many searches in
+	// parallel, such as BatchAnalysis.  Such an engine cannot ponder.
+	public MctsEngine(long playoutBudget)
+	{
+		this.threads = 1;
+		this.playoutBudget = playoutBudget;
+		executor = null;
+	}
+
+	// Searches the position on the specified Board, with the specified
+	// player to move, and returns the board index of the best move found
+	public int search(Board board, int player)
+	{
+		return search(board, player, Long.MAX_VALUE);
+	}
+
+	// Searches like the method above, but also stops when System.nanoTime
+	// reaches deadlineNanos, and returns the best move found by then.  The
+	// search is anytime: every finished playout improves the statistics the
+	// move is chosen from, so however early it is stopped there is a move.
+	public int search(Board board, int player, long deadlineNanos)
+	{
+		MctsNode reused = stopPondering(board, player);
+
+		Board rootBoard = new Board(board);
+		if (rootBoard.getCurrentWinner() != Board.PLAYER_NONE)
+		{
+			throw new IllegalArgumentException("The game on this board is already over");
+		}
+
+		// Playouts already in a reused subtree count towards the budget
+		root = reused != null ? reused : newNode(rootBoard, new InferiorCells(rootBoard.getRows(), rootBoard.getColumns()));
+		lastReusedPlayouts = root.getTotalVisits();
+		playouts.set(lastReusedPlayouts);
+		completed.set(0);
+		stopped = false;
+		budget = playoutBudget;
+		this.deadlineNanos = deadlineNanos;
+
+		long start = System.nanoTime();
+		if (executor == null)
+		{
+			runPlayouts(root, rootBoard, player);
+			if (Thread.currentThread().isInterrupted())
+			{
+				throw new IllegalStateException("Interrupted while searching");
+			}
+		}
+		else
+		{
+			awaitTasks(submitTasks(root, rootBoard, player), "searching");
+		}
+		lastElapsedNanos = System.nanoTime() - start;
+		lastPlayouts = completed.get();
+
+		int best = root.getMostVisitedMove();
+		if (pondering)
+		{
+			startPondering(rootBoard, player, best);
+		}
+		return root.getMove(best);
+	}
+
+	// Turns pondering on or off.  Turning it off stops any pondering now.
+	public void setPondering(boolean pondering)
+	{
+		if (pondering && executor == null)
+		{
+			throw new IllegalStateException("An engine without threads of its own cannot ponder");
+		}
+		this.pondering = pondering;
+		if (!pondering)
+		{
+			stopPondering(null, Board.PLAYER_NONE);
+		}
+	}
+
+	// Returns whether the engine ponders
+	public boolean isPondering()
+	{
+		return pondering;
+	}
+
+	// Starts searching, in the background, the position after the
+	// specified move of the tree just searched.  Pondering stops by itself
+	// after as many playouts as the search that chose the move, so that an
+	// engine whose opponent never moves again does not search (and grow its
+	// tree) forever.
+	private void startPondering(Board rootBoard, int player, int move)
+	{
+		Board board = new Board(rootBoard);
+		board.setPlayer(root.getMove(move), player);
+		if (board.getCurrentWinner() != Board.PLAYER_NONE)
+		{
+			return;
+		}
+
+		MctsNode node = root.getChild(move);
+		if (node == null)
+		{
+			node = newNode(board, new InferiorCells(board.getRows(), board.getColumns()));
+		}
+		ponderBoard = board;
+		ponderRoot = node;
+		ponderPlayer = 3 - player;
+
+		playouts.set(node.getTotalVisits());
+		completed.set(0);
+		stopped = false;
+		budget = node.getTotalVisits() + Math.max(lastReusedPlayouts + lastPlayouts, 1);
+		deadlineNanos = Long.MAX_VALUE;
+
+		ponderTasks = submitTasks(node, board, ponderPlayer);
+	}
+
+	// Stops pondering, if the engine is, and returns the node for the
+	// position on the specified Board if the pondered tree has one: that
+	// is, if the Board holds the pondered position plus one move by the
+	// player who was to move there, and that move's node was expanded.
+	// Returns null otherwise.
+	private MctsNode stopPondering(Board board, int player)
+	{
+		if (ponderTasks == null)
+		{
+			return null;
+		}
+
+		List<Future<Void>> tasks = ponderTasks;
+		MctsNode ponderNode = ponderRoot;
+		Board pondered = ponderBoard;
+		ponderTasks = null;
+		ponderRoot = null;
+		ponderBoard = null;
+		stopped = true;
+		awaitTasks(tasks, "stopping pondering");
+
+		if (board == null || player != 3 - ponderPlayer ||
+				board.getRows() != pondered.getRows() || board.getColumns() != pondered.getColumns())
+		{
+			return null;
+		}
+
+		int reply = -1;
+		int spaces = board.getRows() * board.getColumns();
+		for (int i = 0; i < spaces; i++)
+		{
+			int occupant = board.getPlayer(i);
+			if (occupant != pondered.getPlayer(i))
+			{
+				if (reply >= 0 || occupant != ponderPlayer || pondered.getPlayer(i) != Board.PLAYER_NONE)
+				{
+					return null;
+				}
+				reply = i;
+			}
+		}
+		if (reply < 0)
+		{
+			return null;
+		}
+
+		for (int move = 0; move < ponderNode.getMoveCount(); move++)
+		{
+			if (ponderNode.getMove(move) == reply)
+			{
+				return ponderNode.getChild(move);
+			}
+		}
+		return null;
+	}
+
+	// Starts a task running playouts from the specified node on each of
+	// the search threads
+	private List<Future<Void>> submitTasks(final MctsNode node, final Board board, final int player)
+	{
+		List<Future<Void>> tasks = new ArrayList<Future<Void>>();
+		for (int i = 0; i < threads; i++)
+		{
+			tasks.add(executor.submit(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					runPlayouts(node, board, player);
+					return null;
+				}
+			}));
+		}
+		return tasks;
+	}
+
+	// Waits for all of the specified tasks to finish.  If the calling
+	// thread is interrupted while it waits, as GameClock interrupts a player
+	// that has run out of time, or if a task fails, the rest are stopped and
+	// still waited for before this throws, so that no task is left running
+	// into the next search, which would reset the budget and deadline under
+	// it and share its tree.
+	private void awaitTasks(List<Future<Void>> tasks, String doing)
+	{
+		boolean interrupted = false;
+		Throwable failure = null;
+		for (Future<Void> task : tasks)
+		{
+			while (true)
+			{
+				try
+				{
+					task.get();
+					break;
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+					stopped = true;
+				}
+				catch (ExecutionException e)
+				{
+					if (failure == null)
+					{
+						failure = e.getCause();
+					}
+					stopped = true;
+					break;
+				}
+			}
+		}
+
+		if (interrupted)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while " + doing);
+		}
+		if (failure != null)
+		{
+			throw new IllegalStateException("Search thread failed", failure);
+		}
+	}
+
+	// Returns the tree built by the most recent search
+	public MctsNode getRoot()
+	{
+		return root;
+	}
+
+	// Returns the number of playouts run by the most recent search
+	public long getLastPlayouts()
+	{
+		return lastPlayouts;
+	}
+
+	// Returns the number of playouts the most recent search started with,
+	// from the part of the tree it reused from pondering
+	public long getLastReusedPlayouts()
+	{
+		return lastReusedPlayouts;
+	}
+
+	// Returns how many playouts per second the most recent search ran,
+	// across all of its threads
+	public double getLastPlayoutsPerSecond()
+	{
+		return lastElapsedNanos == 0 ? 0 : lastPlayouts * 1e9 / lastElapsedNanos;
+	}
+
+	// Returns the number of threads this engine searches with
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	// Stops the engine's threads.  The engine cannot search after this.
+	public void shutdown()
+	{
+		stopped = true;
+		if (executor != null)
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	// Returns a new node for the position on the specified Board, whose
+	// moves are the candidate moves the specified InferiorCells finds
+	private static MctsNode newNode(Board board, InferiorCells inferiorCells)
+	{
+		return new MctsNode(inferiorCells.findCandidateMoves(board));
+	}
+
+	// The loop run by each search thread
+	private void runPlayouts(MctsNode root, Board rootBoard, int rootPlayer)
+	{
+		Board board = new Board(rootBoard);
+		int spaces = board.getRows() * board.getColumns();
+		MctsNode[] pathNodes = new MctsNode[spaces];
+		int[] pathMoves = new int[spaces];
+		PlayoutKernel kernel = new PlayoutKernel(board.getRows(), board.getColumns(),
+				ThreadLocalRandom.current().nextLong());
+		InferiorCells inferiorCells = new InferiorCells(board.getRows(), board.getColumns());
+
+		// An interrupt stops the playouts too, since nothing else would stop
+		// a search running on the caller's thread; search then reports it
+		while (!stopped)
+		{
+			if (playouts.getAndIncrement() >= budget || System.nanoTime() >= deadlineNanos ||
+					Thread.currentThread().isInterrupted())
+			{
+				stopped = true;
+				break;
+			}
+
+			// Walk down the tree, expanding it where the path leaves it
+			MctsNode node = root;
+			int toMove = rootPlayer;
+			int depth = 0;
+			int winner = Board.PLAYER_NONE;
+			while (true)
+			{
+				int move = node.select(EXPLORATION);
+				pathNodes[depth] = node;
+				pathMoves[depth] = move;
+				depth++;
+
+				board.makeMove(node.getMove(move), toMove);
+				toMove = 3 - toMove;
+				winner = board.getCurrentWinner();
+				if (winner != Board.PLAYER_NONE)
+				{
+					break;
+				}
+
+				MctsNode child = node.getChild(move);
+				if (child == null)
+				{
+					if (node.getVisits(move) < EXPANSION_THRESHOLD)
+					{
+						break;
+					}
+					child = node.setChild(move, newNode(board, inferiorCells));
+				}
+				node = child;
+			}
+
+			if (winner == Board.PLAYER_NONE)
+			{
+				kernel.setPosition(board);
+				winner = kernel.playout(toMove);
+			}
+
+			// Credit the result to every move on the path, and take them back
+			int mover = rootPlayer;
+			for (int i = 0; i < depth; i++)
+			{
+				if (winner == mover)
+				{
+					pathNodes[i].recordWin(pathMoves[i]);
+				}
+				mover = 3 - mover;
+				board.undoMove();
+			}
+			completed.incrementAndGet();
+		}
+	}
+}
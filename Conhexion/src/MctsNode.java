@@ -0,0 +1,173 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// One position in an MctsEngine search tree.  The statistics of each move
+// out of the position live here, in arrays indexed like moves, rather than
+// in the child nodes: a child node is only created once its move has been
+// visited often enough to be worth expanding, which keeps the tree small.
+// All of the statistics are updated with atomic operations, so any number
+// of search threads can share a node without locking.
+public class MctsNode
+{
+	// Board indices of the moves that can be played here
+	private final int[] moves;
+
+	// Number of playouts that went through each move, including the ones
+	// still running (those count as losses until they finish: "virtual loss")
+	private final AtomicIntegerArray visits;
+
+	// Number of playouts through each move that were won by the player
+	// making the move
+	private final AtomicIntegerArray wins;
+
+	private final AtomicReferenceArray<MctsNode> children;
+	private final AtomicInteger totalVisits;
+
+	// Constructs a node for the position on the specified Board, with every
+	// empty space as a move
+	public MctsNode(Board board)
+	{
+		this(emptySpaces(board));
+	}
+
+	// Constructs a node whose moves are the specified board indices
+	public MctsNode(int[] moves)
+	{
+		this.moves = moves;
+		visits = new AtomicIntegerArray(moves.length);
+		wins = new AtomicIntegerArray(moves.length);
+		children = new AtomicReferenceArray<MctsNode>(moves.length);
+		totalVisits = new AtomicInteger();
+	}
+
+	private static int[] emptySpaces(Board board)
+	{
+		int spaces = board.getRows() * board.getColumns();
+		int count = 0;
+		for (int i = 0; i < spaces; i++)
+		{
+			if (board.getPlayer(i) == Board.PLAYER_NONE)
+			{
+				count++;
+			}
+		}
+
+		int[] moves = new int[count];
+		count = 0;
+		for (int i = 0; i < spaces; i++)
+		{
+			if (board.getPlayer(i) == Board.PLAYER_NONE)
+			{
+				moves[count++] = i;
+			}
+		}
+		return moves;
+	}
+
+	// Returns the number of moves that can be played from this position
+	public int getMoveCount()
+	{
+		return moves.length;
+	}
+
+	// Returns the board index of the specified move
+	public int getMove(int move)
+	{
+		return moves[move];
+	}
+
+	// Returns the number of playouts that went through the specified move
+	public int getVisits(int move)
+	{
+		return visits.get(move);
+	}
+
+	// Returns the number of playouts through the specified move that were
+	// won by the player making it
+	public int getWins(int move)
+	{
+		return wins.get(move);
+	}
+
+	// Returns the number of playouts that went through this position
+	public int getTotalVisits()
+	{
+		return totalVisits.get();
+	}
+
+	// Returns the node for the position after the specified move, or null
+	// if it has not been expanded yet
+	public MctsNode getChild(int move)
+	{
+		return children.get(move);
+	}
+
+	// Sets the node for the position after the specified move, unless
+	// another thread got there first.  Returns whichever node ended up
+	// in the tree.
+	public MctsNode setChild(int move, MctsNode child)
+	{
+		if (children.compareAndSet(move, null, child))
+		{
+			return child;
+		}
+		return children.get(move);
+	}
+
+	// Picks the move to explore next using the UCT formula, and records a
+	// visit to it before returning, so that other threads see it as a loss
+	// and spread out over other moves until the playout comes back
+	public int select(double exploration)
+	{
+		int parentVisits = totalVisits.getAndIncrement() + 1;
+		double logParentVisits = Math.log(parentVisits);
+
+		int best = -1;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < moves.length; i++)
+		{
+			int n = visits.get(i);
+			if (n == 0)
+			{
+				best = i;
+				break;
+			}
+
+			double value = (double) wins.get(i) / n + exploration * Math.sqrt(logParentVisits / n);
+			if (value > bestValue)
+			{
+				bestValue = value;
+				best = i;
+			}
+		}
+
+		visits.incrementAndGet(best);
+		return best;
+	}
+
+	// Records that a playout through the specified move, already counted
+	// by select, was won by the player making it
+	public void recordWin(int move)
+	{
+		wins.incrementAndGet(move);
+	}
+
+	// Returns the move with the most visits, which is the most reliable
+	// choice once the search is over, or -1 if there are no moves
+	public int getMostVisitedMove()
+	{
+		int best = -1;
+		int bestVisits = -1;
+		for (int i = 0; i < moves.length; i++)
+		{
+			int n = visits.get(i);
+			if (n > bestVisits)
+			{
+				bestVisits = n;
+				best = i;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,347 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Counters and histograms of what the game loop, the Board and its
+// union-find spend their time on:
+//
+//   - how long each player takes to choose a move (GameManager and Match)
+//   - how deep each union-find find goes, and how many unions merge
+//     two components (UndoableUnionFind)
+//   - how many Boards are copied, and roughly how many bytes that copies
+//   - how long the render thread takes to draw a frame (GameManager)
+//
+// Metrics are off unless the JVM is started with -Dconhexion.metrics=true.
+// ENABLED is a static final field, so when it is false the JIT compiler
+// drops every "if (Metrics.ENABLED)" block from the code it generates and
+// the instrumentation costs nothing.  When it is true, everything is
+// registered with the platform MBean server as conhexion:type=Metrics (see
+// MetricsMXBean), and a report is printed every
+// conhexion.metrics.interval seconds (10 by default, 0 for never) and once
+// more when the JVM exits.
+//
+// The counters are LongAdders, so any number of threads, such as the
+// playout threads of an MctsEngine, can record without contending.
+public final class Metrics implements MetricsMXBean
+{
+	// Whether anything is recorded at all
+	public static final boolean ENABLED = Boolean.getBoolean("conhexion.metrics");
+
+	private static final Metrics instance = new Metrics();
+
+	private final Histogram[] moveNanos = { null, new Histogram(), new Histogram() };
+	private final Histogram findDepths = new Histogram();
+	private final LongAdder unions = new LongAdder();
+	private final LongAdder boardClones = new LongAdder();
+	private final LongAdder boardCloneBytes = new LongAdder();
+	private final Histogram frameNanos = new Histogram();
+
+	static
+	{
+		if (ENABLED)
+		{
+			instance.start(Long.getLong("conhexion.metrics.interval", 10));
+		}
+	}
+
+	private Metrics()
+	{
+	}
+
+	// Records that the specified player took the specified time to move
+	public static void recordMove(int player, long nanos)
+	{
+		instance.moveNanos[player].record(nanos);
+	}
+
+	// Records a find that followed the specified number of parent links
+	public static void recordFind(int depth)
+	{
+		instance.findDepths.record(depth);
+	}
+
+	// Records a union that merged two components
+	public static void recordUnion()
+	{
+		instance.unions.increment();
+	}
+
+	// Records a copy of a Board's state of the specified size
+	public static void recordBoardClone(long bytes)
+	{
+		instance.boardClones.increment();
+		instance.boardCloneBytes.add(bytes);
+	}
+
+	// Records a frame that took the specified time to draw
+	public static void recordFrame(long nanos)
+	{
+		instance.frameNanos.record(nanos);
+	}
+
+	// Returns a text report of everything recorded so far
+	public static String report()
+	{
+		return instance.getReport();
+	}
+
+	// Registers the MXBean, and starts the thread that prints the report
+	// every intervalSeconds
+	private void start(final long intervalSeconds)
+	{
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("conhexion:type=Metrics"));
+		}
+		catch (JMException e)
+		{
+			System.out.println("Cannot register metrics with JMX: " + e.getMessage());
+		}
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				System.out.print(getReport());
+			}
+		}, "Conhexion metrics at exit"));
+
+		if (intervalSeconds <= 0)
+		{
+			return;
+		}
+		Thread dumper = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					while (true)
+					{
+						Thread.sleep(intervalSeconds * 1000);
+						System.out.print(getReport());
+					}
+				}
+				catch (InterruptedException e)
+				{
+					// Stop reporting
+				}
+			}
+		}, "Conhexion metrics");
+		dumper.setDaemon(true);
+		dumper.start();
+	}
+
+	@Override
+	public long getPlayer1Moves()
+	{
+		return moveNanos[Board.PLAYER_1].getCount();
+	}
+
+	@Override
+	public double getPlayer1MeanMoveMillis()
+	{
+		return moveNanos[Board.PLAYER_1].getMean() / 1e6;
+	}
+
+	@Override
+	public double getPlayer1P99MoveMillis()
+	{
+		return moveNanos[Board.PLAYER_1].getPercentile(0.99) / 1e6;
+	}
+
+	@Override
+	public long getPlayer2Moves()
+	{
+		return moveNanos[Board.PLAYER_2].getCount();
+	}
+
+	@Override
+	public double getPlayer2MeanMoveMillis()
+	{
+		return moveNanos[Board.PLAYER_2].getMean() / 1e6;
+	}
+
+	@Override
+	public double getPlayer2P99MoveMillis()
+	{
+		return moveNanos[Board.PLAYER_2].getPercentile(0.99) / 1e6;
+	}
+
+	@Override
+	public long getFinds()
+	{
+		return findDepths.getCount();
+	}
+
+	@Override
+	public double getMeanFindDepth()
+	{
+		return findDepths.getMean();
+	}
+
+	@Override
+	public long getMaxFindDepth()
+	{
+		return findDepths.getMax();
+	}
+
+	@Override
+	public long getUnions()
+	{
+		return unions.sum();
+	}
+
+	@Override
+	public long getBoardClones()
+	{
+		return boardClones.sum();
+	}
+
+	@Override
+	public long getBoardCloneBytes()
+	{
+		return boardCloneBytes.sum();
+	}
+
+	@Override
+	public long getFrames()
+	{
+		return frameNanos.getCount();
+	}
+
+	@Override
+	public double getMeanFrameMillis()
+	{
+		return frameNanos.getMean() / 1e6;
+	}
+
+	@Override
+	public double getMaxFrameMillis()
+	{
+		return frameNanos.getMax() / 1e6;
+	}
+
+	@Override
+	public String getReport()
+	{
+		StringBuilder report = new StringBuilder("Metrics:\n");
+		for (int player = Board.PLAYER_1; player <= Board.PLAYER_2; player++)
+		{
+			Histogram moves = moveNanos[player];
+			report.append(String.format("  player %d moves: %d, mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+					player, moves.getCount(), moves.getMean() / 1e6, moves.getPercentile(0.5) / 1e6,
+					moves.getPercentile(0.99) / 1e6, moves.getMax() / 1e6));
+		}
+		report.append(String.format("  finds: %d, mean depth %.2f, p99 depth %d, max depth %d%n",
+				findDepths.getCount(), findDepths.getMean(), findDepths.getPercentile(0.99), findDepths.getMax()));
+		report.append(String.format("  unions: %d%n", unions.sum()));
+		report.append(String.format("  board clones: %d, %.1f MB%n", boardClones.sum(), boardCloneBytes.sum() / 1e6));
+		report.append(String.format("  frames: %d, mean %.2f ms, p99 %.2f ms, max %.2f ms%n",
+				frameNanos.getCount(), frameNanos.getMean() / 1e6, frameNanos.getPercentile(0.99) / 1e6,
+				frameNanos.getMax() / 1e6));
+		return report.toString();
+	}
+
+	@Override
+	public void reset()
+	{
+		for (int player = Board.PLAYER_1; player <= Board.PLAYER_2; player++)
+		{
+			moveNanos[player].reset();
+		}
+		findDepths.reset();
+		unions.reset();
+		boardClones.reset();
+		boardCloneBytes.reset();
+		frameNanos.reset();
+	}
+
+	// A histogram of non-negative values with one bucket per power of two,
+	// so recording is a few additions and percentiles are exact to within a
+	// factor of two
+	public static final class Histogram
+	{
+		private final LongAdder[] buckets = new LongAdder[65];
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(new LongBinaryOperator()
+		{
+			@Override
+			public long applyAsLong(long a, long b)
+			{
+				return Math.max(a, b);
+			}
+		}, 0);
+
+		public Histogram()
+		{
+			for (int i = 0; i < buckets.length; i++)
+			{
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		// Adds the specified value, which goes in bucket b such that
+		// 2^(b-1) <= value < 2^b (bucket 0 holds zero)
+		public void record(long value)
+		{
+			buckets[64 - Long.numberOfLeadingZeros(value)].increment();
+			count.increment();
+			sum.add(value);
+			max.accumulate(value);
+		}
+
+		public long getCount()
+		{
+			return count.sum();
+		}
+
+		public double getMean()
+		{
+			long n = count.sum();
+			return n == 0 ? 0 : (double) sum.sum() / n;
+		}
+
+		public long getMax()
+		{
+			return max.get();
+		}
+
+		// Returns a value at least as large as the specified fraction of
+		// the values recorded: the top of the bucket the percentile falls
+		// in, or the largest value if that is smaller
+		public long getPercentile(double fraction)
+		{
+			long wanted = (long) Math.ceil(count.sum() * fraction);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++)
+			{
+				seen += buckets[i].sum();
+				if (seen >= wanted && seen > 0)
+				{
+					long top = i == 0 ? 0 : i == 64 ? Long.MAX_VALUE : (1L << i) - 1;
+					return Math.min(top, getMax());
+				}
+			}
+			return 0;
+		}
+
+		public void reset()
+		{
+			for (LongAdder bucket : buckets)
+			{
+				bucket.reset();
+			}
+			count.reset();
+			sum.reset();
+			max.reset();
+		}
+	}
+}
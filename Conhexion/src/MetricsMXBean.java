@@ -0,0 +1,41 @@
+// The attributes and operations Metrics shows through JMX, for jconsole,
+// VisualVM or any other JMX client, under the name conhexion:type=Metrics.
+// Times are in milliseconds.
+public interface MetricsMXBean
+{
+	long getPlayer1Moves();
+
+	double getPlayer1MeanMoveMillis();
+
+	double getPlayer1P99MoveMillis();
+
+	long getPlayer2Moves();
+
+	double getPlayer2MeanMoveMillis();
+
+	double getPlayer2P99MoveMillis();
+
+	long getFinds();
+
+	double getMeanFindDepth();
+
+	long getMaxFindDepth();
+
+	long getUnions();
+
+	long getBoardClones();
+
+	long getBoardCloneBytes();
+
+	long getFrames();
+
+	double getMeanFrameMillis();
+
+	double getMaxFrameMillis();
+
+	// The same text as the periodic dump
+	String getReport();
+
+	// Starts every counter and histogram over from zero
+	void reset();
+}
@@ -0,0 +1,330 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// A book of precomputed opening moves for one board size, built offline by
+// running long MctsEngine searches over the first few plies of the game.
+//
+// Positions are keyed by a Zobrist hash that is the same for a position and
+// its 180-degree rotation (which swaps the top and bottom edges, and the
+// left and right ones, so it is the same position for both players): of the
+// two hashes, the smaller is the key, and the move is stored as seen from
+// that orientation.  The book is a file of (key, move) entries sorted by
+// key, which is memory-mapped and binary searched, so a lookup costs a
+// scan of the board to hash its rotation plus about log2(entries) reads.
+//
+// File format (big-endian): "HEXB", a version byte, rows, columns and the
+// number of entries as ints, then each entry as a long key and an int move.
+//
+// Usage: java OpeningBook <book file> [rows] [columns] [plies] [width] [playouts] [threads]
+//
+// Builds a book by searching the empty board, then the positions after the
+// best width moves of each position searched, down to the given number of
+// plies, with the given number of playouts per position.
+public class OpeningBook
+{
+	private static final byte[] MAGIC = { 'H', 'E', 'X', 'B' };
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = MAGIC.length + 1 + 3 * 4;
+	private static final int ENTRY_BYTES = 8 + 4;
+
+	// Mixed into the key when player 2 is to move
+	private static final long PLAYER_2_TO_MOVE = 0x5DEECE66DL * 0x9E3779B97F4A7C15L;
+
+	// Books that have been opened by forSize, by board size
+	private static final Map<String, OpeningBook> booksBySize = new HashMap<String, OpeningBook>();
+
+	private final MappedByteBuffer entries;
+	private final int rows;
+	private final int columns;
+	private final int count;
+
+	// Opens the book with the specified file name
+	public OpeningBook(String fileName) throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try
+		{
+			FileChannel channel = file.getChannel();
+			entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally
+		{
+			// The mapping stays valid after the file is closed
+			file.close();
+		}
+
+		byte[] magic = new byte[MAGIC.length];
+		if (entries.capacity() < HEADER_BYTES)
+		{
+			throw new IOException(fileName + " is not a version " + VERSION + " opening book");
+		}
+		entries.get(magic);
+		if (!Arrays.equals(magic, MAGIC) || entries.get() != VERSION)
+		{
+			throw new IOException(fileName + " is not a version " + VERSION + " opening book");
+		}
+		rows = entries.getInt();
+		columns = entries.getInt();
+		count = entries.getInt();
+		if (entries.capacity() != HEADER_BYTES + (long) count * ENTRY_BYTES)
+		{
+			throw new IOException(fileName + " is truncated");
+		}
+	}
+
+	// Returns the book for boards of the specified size, which is the file
+	// book-<rows>x<columns>.hexb in the current directory, or null if there
+	// is no such file.  Each book is only opened once.
+	public static synchronized OpeningBook forSize(int rows, int columns)
+	{
+		String size = rows + "x" + columns;
+		if (!booksBySize.containsKey(size))
+		{
+			OpeningBook book = null;
+			String fileName = "book-" + size + ".hexb";
+			if (new File(fileName).exists())
+			{
+				try
+				{
+					book = new OpeningBook(fileName);
+				}
+				catch (IOException e)
+				{
+					System.out.println("Cannot open opening book " + fileName + ": " + e.getMessage());
+				}
+			}
+			booksBySize.put(size, book);
+		}
+		return booksBySize.get(size);
+	}
+
+	// Returns the book move for the position on the specified Board with
+	// the specified player to move, or null if the book does not have it
+	public Location getMove(Board board, int player)
+	{
+		int move = lookup(board, player);
+		return move < 0 ? null : new Location(move / columns, move % columns);
+	}
+
+	// Returns the board index of the book move for the position on the
+	// specified Board with the specified player to move, or -1 if the book
+	// does not have it
+	public int lookup(Board board, int player)
+	{
+		if (board.getRows() != rows || board.getColumns() != columns)
+		{
+			return -1;
+		}
+
+		long hash = board.getHash();
+		long rotatedHash = rotatedHash(board);
+		boolean rotated = Long.compareUnsigned(rotatedHash, hash) < 0;
+		long key = (rotated ? rotatedHash : hash) ^ (player == Board.PLAYER_2 ? PLAYER_2_TO_MOVE : 0);
+
+		int low = 0;
+		int high = count - 1;
+		while (low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			int position = HEADER_BYTES + middle * ENTRY_BYTES;
+			int order = Long.compareUnsigned(entries.getLong(position), key);
+			if (order < 0)
+			{
+				low = middle + 1;
+			}
+			else if (order > 0)
+			{
+				high = middle - 1;
+			}
+			else
+			{
+				int move = entries.getInt(position + 8);
+				return rotated ? rows * columns - 1 - move : move;
+			}
+		}
+		return -1;
+	}
+
+	// Returns the number of positions in the book
+	public int size()
+	{
+		return count;
+	}
+
+	// Returns the Zobrist hash the specified Board would have if it were
+	// rotated 180 degrees, which moves space i to space rows * columns - 1 - i
+	private static long rotatedHash(Board board)
+	{
+		int spaces = board.getRows() * board.getColumns();
+		long hash = 0;
+		for (int i = 0; i < spaces; i++)
+		{
+			int player = board.getPlayer(i);
+			if (player != Board.PLAYER_NONE)
+			{
+				hash ^= Board.getZobristKey(spaces - 1 - i, player);
+			}
+		}
+		return hash;
+	}
+
+	// Builds a book for boards of the specified size, as described at the
+	// top, and writes it to the specified file
+	public static void build(String fileName, int rows, int columns, int plies, int width,
+			long playouts, int threads) throws IOException
+	{
+		MctsEngine engine = new MctsEngine(threads, playouts);
+		Map<Long, Integer> book = new HashMap<Long, Integer>();
+		Set<Long> seen = new HashSet<Long>();
+		ArrayDeque<Board> positions = new ArrayDeque<Board>();
+		ArrayDeque<Integer> depths = new ArrayDeque<Integer>();
+		positions.add(new Board(rows, columns));
+		depths.add(0);
+		int spaces = rows * columns;
+
+		long start = System.nanoTime();
+		try
+		{
+			while (!positions.isEmpty())
+			{
+				Board board = positions.poll();
+				int depth = depths.poll();
+
+				// Player 1 moves first, so the players alternate from there
+				int player = depth % 2 == 0 ? Board.PLAYER_1 : Board.PLAYER_2;
+				long hash = board.getHash();
+				long rotatedHash = rotatedHash(board);
+				boolean rotated = Long.compareUnsigned(rotatedHash, hash) < 0;
+				long key = (rotated ? rotatedHash : hash) ^ (player == Board.PLAYER_2 ? PLAYER_2_TO_MOVE : 0);
+				if (!seen.add(key) || board.getCurrentWinner() != Board.PLAYER_NONE)
+				{
+					continue;
+				}
+
+				int move = engine.search(board, player);
+				book.put(key, rotated ? spaces - 1 - move : move);
+				System.out.printf("Ply %d, position %d: move %d, %d playouts (%.0f s so far)%n", depth,
+						book.size(), move, engine.getLastPlayouts(), (System.nanoTime() - start) / 1e9);
+
+				if (depth + 1 < plies)
+				{
+					for (int child : bestMoves(engine.getRoot(), width))
+					{
+						Board next = new Board(board);
+						next.setPlayer(child, player);
+						positions.add(next);
+						depths.add(depth + 1);
+					}
+				}
+			}
+		}
+		finally
+		{
+			engine.shutdown();
+		}
+
+		Long[] keys = book.keySet().toArray(new Long[book.size()]);
+		Arrays.sort(keys, new Comparator<Long>()
+		{
+			@Override
+			public int compare(Long a, Long b)
+			{
+				return Long.compareUnsigned(a, b);
+			}
+		});
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+		try
+		{
+			out.write(MAGIC);
+			out.write(VERSION);
+			out.writeInt(rows);
+			out.writeInt(columns);
+			out.writeInt(keys.length);
+			for (Long key : keys)
+			{
+				out.writeLong(key);
+				out.writeInt(book.get(key));
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	// Returns the board indices of the specified number of most visited
+	// moves of the specified node
+	private static int[] bestMoves(MctsNode node, int width)
+	{
+		Integer[] order = new Integer[node.getMoveCount()];
+		for (int i = 0; i < order.length; i++)
+		{
+			order[i] = i;
+		}
+		final MctsNode searched = node;
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer a, Integer b)
+			{
+				return Integer.compare(searched.getVisits(b), searched.getVisits(a));
+			}
+		});
+
+		int[] moves = new int[Math.min(width, order.length)];
+		for (int i = 0; i < moves.length; i++)
+		{
+			moves[i] = node.getMove(order[i]);
+		}
+		return moves;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 1)
+		{
+			System.out.println("Usage: java OpeningBook <book file> [rows] [columns] [plies] [width] [playouts] [threads]");
+			return;
+		}
+
+		int rows = args.length > 1 ? Integer.parseInt(args[1]) : 11;
+		int columns = args.length > 2 ? Integer.parseInt(args[2]) : rows;
+		int plies = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+		int width = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+		long playouts = args.length > 5 ? Long.parseLong(args[5]) : 1000000;
+		int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+
+		build(args[0], rows, columns, plies, width, playouts, threads);
+
+		// Check the book can be read back, and time a lookup
+		OpeningBook book = new OpeningBook(args[0]);
+		Board board = new Board(rows, columns);
+		long start = System.nanoTime();
+		int lookups = 100000;
+		int found = 0;
+		for (int i = 0; i < lookups; i++)
+		{
+			if (book.lookup(board, Board.PLAYER_1) >= 0)
+			{
+				found++;
+			}
+		}
+		System.out.printf("Wrote %d positions to %s; lookup of the empty board %s, %.2f us each%n",
+				book.size(), args[0], found == lookups ? "found" : "NOT found",
+				(System.nanoTime() - start) / 1e3 / lookups);
+	}
+}
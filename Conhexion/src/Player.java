@@ -1,8 +1,8 @@
-// DO NOT MODIFY!!!
-
-
-public interface Player
-{
-	// Returns the Location where this Player chooses to move
-	Location getNextMove(Board board, int player);
-}
+// DO NOT MODIFY!!!
+
+
+public interface Player
+{
+	// Returns the Location where this Player chooses to move
+	Location getNextMove(Board board, int player);
+}
@@ -1,33 +1,37 @@
-
-public class PlayerInteractive implements Player
-{
-	private GameManager gameManager;
-
-	public PlayerInteractive(GameManager gameManagerP)
-	{
-		gameManager = gameManagerP;
-	}
-
-	@Override
-	public Location getNextMove(Board board, int player)
-	{
-		while (true) 
-		{
-			if (StdDraw.mousePressed())
-			{
-				// screen coordinates
-				double x = StdDraw.mouseX();
-				double y = StdDraw.mouseY();
-
-				Location location = gameManager.locationFromMouseCoordinates(x, y);
-
-				if (location != null && board.getPlayer(location) == Board.PLAYER_NONE)
-				{
-					return location;
-				}
-			}
-
-			StdDraw.show(20);
-		}
-	}
-}
+import java.util.concurrent.locks.LockSupport;
+
+
+public class PlayerInteractive implements Player
+{
+	private GameManager gameManager;
+
+	public PlayerInteractive(GameManager gameManagerP)
+	{
+		gameManager = gameManagerP;
+	}
+
+	@Override
+	public Location getNextMove(Board board, int player)
+	{
+		while (true) 
+		{
+			if (StdDraw.mousePressed())
+			{
+				// screen coordinates
+				double x = StdDraw.mouseX();
+				double y = StdDraw.mouseY();
+
+				int index = gameManager.indexFromMouseCoordinates(x, y);
+
+				if (index >= 0 && board.getPlayer(index) == Board.PLAYER_NONE)
+				{
+					return new Location(index / board.getColumns(), index % board.getColumns());
+				}
+			}
+
+			// GameManager's render thread keeps the window up to date, so
+			// just wait a little before looking at the mouse again
+			LockSupport.parkNanos(20000000L);
+		}
+	}
+}
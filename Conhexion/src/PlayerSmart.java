@@ -1,15 +1,150 @@
-public class PlayerSmart implements Player
-{
-	// Constructs a new instance of the PlayerSmart class
-	public PlayerSmart()
-	{
-		throw new UnsupportedOperationException();
-	}
-
-	// Returns the Location where this Player chooses to move
-	@Override
-	public Location getNextMove(Board board, int player)
-	{
-		throw new UnsupportedOperationException();
-	}
-}
+public class PlayerSmart implements TimedPlayer, AutoCloseable
+{
+	// Number of playouts to run for each move, unless specified otherwise
+	private static final long DEFAULT_PLAYOUTS = 200000;
+
+	// Under a time control, the share of the remaining time spent on a
+	// move is 1 / (number of moves still expected), where this player
+	// expects to make at least this many more moves
+	private static final int MIN_MOVES_TO_GO = 10;
+
+	// Time kept back from every move for getting the answer to the clock
+	private static final long SAFETY_MARGIN_NANOS = 20000000L;
+
+	private final MctsEngine engine;
+
+	// Whether to print what each move cost (see setVerbose)
+	private boolean verbose;
+
+	// Whether the last move came from the opening book, and if not, how
+	// many playouts it took and how fast they ran
+	private boolean lastMoveFromBook;
+	private long lastPlayouts;
+	private double lastPlayoutsPerSecond;
+
+	// Constructs a new instance of the PlayerSmart class
+	public PlayerSmart()
+	{
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_PLAYOUTS);
+	}
+
+	// Constructs a new instance of the PlayerSmart class that searches
+	// with the specified number of threads and playouts per move
+	public PlayerSmart(int threads, long playouts)
+	{
+		engine = new MctsEngine(threads, playouts);
+	}
+
+	// Constructs a new instance of the PlayerSmart class like the one
+	// above, which also ponders on the opponent's time if ponder is
+	// nonzero (an int, so that Tournament can pass it; see MctsEngine)
+	public PlayerSmart(int threads, long playouts, int ponder)
+	{
+		this(threads, playouts);
+		engine.setPondering(ponder != 0);
+	}
+
+	// Sets whether to print a line for every move, saying whether it came
+	// from the opening book or how many playouts it took.  Off by default,
+	// since Tournament, GameServer and SelfPlay play thousands of games.
+	public void setVerbose(boolean verbose)
+	{
+		this.verbose = verbose;
+	}
+
+	// Returns whether the last move played came from the opening book
+	public boolean wasLastMoveFromBook()
+	{
+		return lastMoveFromBook;
+	}
+
+	// Returns the number of playouts the last move was searched with
+	// (0 for a book move)
+	public long getLastPlayouts()
+	{
+		return lastPlayouts;
+	}
+
+	// Returns how many playouts per second the search for the last move
+	// ran (0 for a book move)
+	public double getLastPlayoutsPerSecond()
+	{
+		return lastPlayoutsPerSecond;
+	}
+
+	// Stops the search engine's threads, and any pondering on them.  The
+	// player cannot move after this.
+	@Override
+	public void close()
+	{
+		engine.shutdown();
+	}
+
+	// Returns the Location where this Player chooses to move
+	@Override
+	public Location getNextMove(Board board, int player)
+	{
+		return search(board, player, Long.MAX_VALUE);
+	}
+
+	// Returns the Location where this Player chooses to move, searching
+	// until the playouts are done or the time set aside for the move has
+	// run out, whichever comes first
+	@Override
+	public Location getNextMove(Board board, int player, long remainingNanos, long incrementNanos)
+	{
+		// Each player fills roughly a quarter of the empty spaces before
+		// a typical game is decided
+		int empty = 0;
+		int spaces = board.getRows() * board.getColumns();
+		for (int i = 0; i < spaces; i++)
+		{
+			if (board.getPlayer(i) == Board.PLAYER_NONE)
+			{
+				empty++;
+			}
+		}
+		int movesToGo = Math.max(MIN_MOVES_TO_GO, empty / 4);
+
+		long budget = remainingNanos / movesToGo + incrementNanos * 3 / 4;
+		long margin = Math.min(SAFETY_MARGIN_NANOS, remainingNanos / 10);
+		budget = Math.max(0, Math.min(budget, remainingNanos - margin));
+		return search(board, player, System.nanoTime() + budget);
+	}
+
+	// Plays the opening book's move if there is a book for this board size
+	// (see OpeningBook.forSize) that has this position, and searches if not
+	private Location search(Board board, int player, long deadlineNanos)
+	{
+		OpeningBook book = OpeningBook.forSize(board.getRows(), board.getColumns());
+		if (book != null)
+		{
+			int bookMove = book.lookup(board, player);
+			if (bookMove >= 0 && board.getPlayer(bookMove) == Board.PLAYER_NONE)
+			{
+				lastMoveFromBook = true;
+				lastPlayouts = 0;
+				lastPlayoutsPerSecond = 0;
+				if (verbose)
+				{
+					System.out.println("PlayerSmart: book move");
+				}
+				return new Location(bookMove / board.getColumns(), bookMove % board.getColumns());
+			}
+		}
+
+		int move = engine.search(board, player, deadlineNanos);
+		lastMoveFromBook = false;
+		lastPlayouts = engine.getLastPlayouts();
+		lastPlayoutsPerSecond = engine.getLastPlayoutsPerSecond();
+
+		if (verbose)
+		{
+			System.out.println("PlayerSmart: " + lastPlayouts + " playouts" +
+					(engine.isPondering() ? " (+" + engine.getLastReusedPlayouts() + " from pondering)" : "") + ", " +
+					(long) lastPlayoutsPerSecond + " playouts/sec on " + engine.getThreads() + " thread(s)");
+		}
+
+		return new Location(move / board.getColumns(), move % board.getColumns());
+	}
+}
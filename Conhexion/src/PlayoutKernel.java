@@ -0,0 +1,278 @@
+import java.util.Arrays;
+
+// Plays random games to completion from a Board position, as fast as
+// possible.  Hex can never end in a draw: once every space is filled
+// exactly one player is connected.  So instead of placing random stones
+// one at a time and checking for a winner after each one, a playout here
+// hands a random half of the empty spaces to the player to move and the
+// rest to the opponent, and then checks player 1's connection once.
+//
+// Stones are kept in per-player bitboards (one bit per board index, 64 to
+// a long), and the connection check is a flood fill from the top edge
+// that grows the reached set by all six hex directions at once using
+// shifts.  Everything a playout needs is allocated up front, so playouts
+// do not allocate.  A kernel is not thread-safe; give each thread its own.
+public class PlayoutKernel
+{
+	private final int rows;
+	private final int columns;
+	private final int spaces;
+	private final int words;
+
+	// Masks of every space on the board, of the top and bottom rows, and of
+	// every space not in the first or last column
+	private final long[] boardMask;
+	private final long[] topRow;
+	private final long[] bottomRow;
+	private final long[] notFirstColumn;
+	private final long[] notLastColumn;
+
+	// The loaded position: each player's stones and a list of the empty spaces
+	private final long[] player1Stones;
+	private final long[] player2Stones;
+	private final int[] empty;
+	private int emptyCount;
+
+	// Scratch bitboards for playouts
+	private final long[] filled;
+	private final long[] reached;
+	private final long[] grown;
+	private final long[] shifted;
+
+	// State of the xorshift random number generator
+	private long seed;
+
+	// Constructs a kernel for boards of the specified size, seeding its
+	// random number generator with the specified value
+	public PlayoutKernel(int rows, int columns, long seed)
+	{
+		this.rows = rows;
+		this.columns = columns;
+		spaces = rows * columns;
+		words = (spaces + 63) >>> 6;
+		this.seed = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+
+		boardMask = new long[words];
+		topRow = new long[words];
+		bottomRow = new long[words];
+		notFirstColumn = new long[words];
+		notLastColumn = new long[words];
+		for (int i = 0; i < spaces; i++)
+		{
+			int column = i % columns;
+			setBit(boardMask, i);
+			if (i < columns)
+			{
+				setBit(topRow, i);
+			}
+			if (i >= spaces - columns)
+			{
+				setBit(bottomRow, i);
+			}
+			if (column != 0)
+			{
+				setBit(notFirstColumn, i);
+			}
+			if (column != columns - 1)
+			{
+				setBit(notLastColumn, i);
+			}
+		}
+
+		player1Stones = new long[words];
+		player2Stones = new long[words];
+		empty = new int[spaces];
+		filled = new long[words];
+		reached = new long[words];
+		grown = new long[words];
+		shifted = new long[words];
+	}
+
+	// Loads the position on the specified Board, which must be the size
+	// this kernel was constructed for
+	public void setPosition(Board board)
+	{
+		if (board.getRows() != rows || board.getColumns() != columns)
+		{
+			throw new IllegalArgumentException("Kernel is for " + rows + "x" + columns +
+					" boards, not " + board.getRows() + "x" + board.getColumns());
+		}
+
+		Arrays.fill(player1Stones, 0);
+		Arrays.fill(player2Stones, 0);
+		emptyCount = 0;
+		for (int i = 0; i < spaces; i++)
+		{
+			int player = board.getPlayer(i);
+			if (player == Board.PLAYER_1)
+			{
+				setBit(player1Stones, i);
+			}
+			else if (player == Board.PLAYER_2)
+			{
+				setBit(player2Stones, i);
+			}
+			else
+			{
+				empty[emptyCount++] = i;
+			}
+		}
+	}
+
+	// Loads the position on the specified Board and plays the specified
+	// number of random games from it, with the specified player to move.
+	// Returns how many of them player 1 won; player 2 won the rest.
+	public int playouts(Board board, int toMove, int count)
+	{
+		setPosition(board);
+		int player1Wins = 0;
+		for (int i = 0; i < count; i++)
+		{
+			if (playout(toMove) == Board.PLAYER_1)
+			{
+				player1Wins++;
+			}
+		}
+		return player1Wins;
+	}
+
+	// Plays one random game from the loaded position, with the specified
+	// player to move, and returns the winner.  The loaded position is left
+	// as it was.
+	public int playout(int toMove)
+	{
+		// Choose the spaces the player to move will get by shuffling them to
+		// the front of the empty list.  The list is a set, so there is no
+		// need to put it back in order afterwards.
+		int moverCount = (emptyCount + 1) >>> 1;
+		long[] moverStones = toMove == Board.PLAYER_1 ? player1Stones : player2Stones;
+		System.arraycopy(moverStones, 0, filled, 0, words);
+		for (int i = 0; i < moverCount; i++)
+		{
+			int pick = i + nextInt(emptyCount - i);
+			int space = empty[pick];
+			empty[pick] = empty[i];
+			empty[i] = space;
+			setBit(filled, space);
+		}
+
+		// filled now has the mover's final stones; player 1 gets everything
+		// else that player 2 does not already have if player 2 is the mover
+		if (toMove == Board.PLAYER_2)
+		{
+			for (int w = 0; w < words; w++)
+			{
+				filled[w] = boardMask[w] & ~filled[w];
+			}
+		}
+
+		return isTopConnectedToBottom(filled) ? Board.PLAYER_1 : Board.PLAYER_2;
+	}
+
+	// Returns whether the specified stones connect the top row to the
+	// bottom row, by flood filling from the top row
+	private boolean isTopConnectedToBottom(long[] stones)
+	{
+		for (int w = 0; w < words; w++)
+		{
+			reached[w] = stones[w] & topRow[w];
+		}
+
+		while (true)
+		{
+			// grown = reached plus its neighbors in all six directions
+			System.arraycopy(reached, 0, grown, 0, words);
+			orShiftedDown(reached, 1, notLastColumn);          // left
+			orShiftedUp(reached, 1, notFirstColumn);           // right
+			orShiftedDown(reached, columns, boardMask);        // up
+			orShiftedUp(reached, columns, boardMask);          // down
+			orShiftedDown(reached, columns - 1, notFirstColumn); // up and right
+			orShiftedUp(reached, columns - 1, notLastColumn);  // down and left
+
+			boolean changed = false;
+			boolean atBottom = false;
+			for (int w = 0; w < words; w++)
+			{
+				long next = grown[w] & stones[w];
+				changed |= next != reached[w];
+				atBottom |= (next & bottomRow[w]) != 0;
+				reached[w] = next;
+			}
+
+			if (atBottom)
+			{
+				return true;
+			}
+			if (!changed)
+			{
+				return false;
+			}
+		}
+	}
+
+	// grown |= (source shifted toward lower indices by the specified
+	// number of bits) & mask
+	private void orShiftedDown(long[] source, int bits, long[] mask)
+	{
+		int wordShift = bits >>> 6;
+		int bitShift = bits & 63;
+		for (int w = 0; w < words; w++)
+		{
+			int from = w + wordShift;
+			long value = 0;
+			if (from < words)
+			{
+				value = source[from] >>> bitShift;
+				if (bitShift != 0 && from + 1 < words)
+				{
+					value |= source[from + 1] << (64 - bitShift);
+				}
+			}
+			shifted[w] = value;
+		}
+		for (int w = 0; w < words; w++)
+		{
+			grown[w] |= shifted[w] & mask[w];
+		}
+	}
+
+	// grown |= (source shifted toward higher indices by the specified
+	// number of bits) & mask
+	private void orShiftedUp(long[] source, int bits, long[] mask)
+	{
+		int wordShift = bits >>> 6;
+		int bitShift = bits & 63;
+		for (int w = words - 1; w >= 0; w--)
+		{
+			int from = w - wordShift;
+			long value = 0;
+			if (from >= 0)
+			{
+				value = source[from] << bitShift;
+				if (bitShift != 0 && from - 1 >= 0)
+				{
+					value |= source[from - 1] >>> (64 - bitShift);
+				}
+			}
+			shifted[w] = value;
+		}
+		for (int w = 0; w < words; w++)
+		{
+			grown[w] |= shifted[w] & mask[w];
+		}
+	}
+
+	// Returns a random int between 0 (inclusive) and bound (exclusive)
+	private int nextInt(int bound)
+	{
+		seed ^= seed << 13;
+		seed ^= seed >>> 7;
+		seed ^= seed << 17;
+		return (int) (((seed >>> 32) * bound) >>> 32);
+	}
+
+	private static void setBit(long[] bits, int index)
+	{
+		bits[index >>> 6] |= 1L << index;
+	}
+}
@@ -0,0 +1,198 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+// A Player whose moves come from a program on the other end of a socket,
+// speaking the line-based protocol described in GameServer.  Before each
+// move it sends every piece that appeared on the board since it last
+// looked, then asks for a move and checks that the reply is a legal one,
+// the same way GameManager.play does.  If the other end breaks the rules
+// or goes away, the player is marked as failed and getNextMove throws.
+public class RemotePlayer implements Player
+{
+	private final Socket socket;
+	private final BufferedReader in;
+	private final Writer out;
+	private final String name;
+
+	// What the other end has been told about the current game's board
+	private byte[] known;
+	private int columns;
+	private boolean failed;
+
+	// Wraps the specified connection, whose first line must be
+	// "HELLO <name>"
+	public RemotePlayer(Socket socket) throws IOException
+	{
+		this.socket = socket;
+		in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+		String hello = in.readLine();
+		if (hello == null || !hello.startsWith("HELLO ") || hello.trim().length() <= "HELLO".length())
+		{
+			socket.close();
+			throw new IOException("Expected HELLO <name> but got " + hello);
+		}
+		name = hello.substring("HELLO ".length()).trim();
+	}
+
+	// Returns the name the other end gave in its HELLO
+	public String getName()
+	{
+		return name;
+	}
+
+	// Returns whether this player broke the rules or lost its connection
+	public boolean hasFailed()
+	{
+		return failed;
+	}
+
+	// Tells the other end that a game on the specified Board is starting,
+	// and which player it is
+	public void startGame(Board board, int player)
+	{
+		known = new byte[board.getRows() * board.getColumns()];
+		columns = board.getColumns();
+		send("START " + board.getRows() + " " + board.getColumns() + " " + player);
+	}
+
+	@Override
+	public Location getNextMove(Board board, int player)
+	{
+		sendNewPieces(board);
+		send("YOURMOVE");
+
+		String line;
+		try
+		{
+			line = in.readLine();
+		}
+		catch (IOException e)
+		{
+			failed = true;
+			throw new UncheckedIOException(name + " did not answer", e);
+		}
+		if (line == null)
+		{
+			failed = true;
+			throw new UncheckedIOException(new IOException(name + " disconnected"));
+		}
+
+		String[] parts = line.trim().split("\\s+");
+		int row;
+		int column;
+		try
+		{
+			if (parts.length != 3 || !parts[0].equals("MOVE"))
+			{
+				throw new NumberFormatException();
+			}
+			row = Integer.parseInt(parts[1]);
+			column = Integer.parseInt(parts[2]);
+		}
+		catch (NumberFormatException e)
+		{
+			throw illegal(player, "sent \"" + line + "\" instead of MOVE <row> <column>");
+		}
+
+		// Is the move legal?
+		if (row < 0 || row >= board.getRows() || column < 0 || column >= board.getColumns())
+		{
+			throw illegal(player, "attempted a move off the board in row " + row + ", column " + column);
+		}
+		int currentOccupant = board.getPlayer(board.indexOf(row, column));
+		if (currentOccupant != Board.PLAYER_NONE)
+		{
+			throw illegal(player, "attempted an illegal move in row " + row + ", column " + column +
+					", which is already occupied by player " + currentOccupant);
+		}
+		return new Location(row, column);
+	}
+
+	// Tells the other end how the game on the specified Board ended
+	public void endGame(Board board, int winner)
+	{
+		if (!failed)
+		{
+			sendNewPieces(board);
+			send("END " + winner);
+		}
+	}
+
+	// Closes the connection
+	public void close()
+	{
+		try
+		{
+			socket.close();
+		}
+		catch (IOException e)
+		{
+			// Nothing more can go wrong with it
+		}
+	}
+
+	// Sends a PLAYED line for every piece the other end has not been told about
+	private void sendNewPieces(Board board)
+	{
+		for (int i = 0; i < known.length; i++)
+		{
+			int player = board.getPlayer(i);
+			if (known[i] != player)
+			{
+				known[i] = (byte) player;
+				write("PLAYED " + (i / columns) + " " + (i % columns) + " " + player + "\n");
+			}
+		}
+	}
+
+	private UnsupportedOperationException illegal(int player, String message)
+	{
+		failed = true;
+		try
+		{
+			out.write("ILLEGAL " + message + "\n");
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			// It is being disqualified either way
+		}
+		return new UnsupportedOperationException("Player # " + player + " (" + name + ") " + message);
+	}
+
+	private void send(String line)
+	{
+		write(line + "\n");
+		try
+		{
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			failed = true;
+			throw new UncheckedIOException("Lost connection to " + name, e);
+		}
+	}
+
+	private void write(String s)
+	{
+		try
+		{
+			out.write(s);
+		}
+		catch (IOException e)
+		{
+			failed = true;
+			throw new UncheckedIOException("Lost connection to " + name, e);
+		}
+	}
+}
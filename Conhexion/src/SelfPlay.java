@@ -0,0 +1,356 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Generates self-play games for tuning: worker threads play MctsEngine
+// against itself, starting each game with a few random moves so that no
+// two games are alike, and hand every finished game to one writer thread
+// through a small bounded queue.  A worker that gets ahead of the writer
+// blocks on the queue until there is room, so memory use stays fixed
+// however the two compare in speed.
+//
+// The writer saves the games as game journals (see GameJournalWriter),
+// gzipped, in chunks of a fixed number of games: selfplay-000000.hexj.gz,
+// selfplay-000001.hexj.gz and so on.  A chunk is written as a .part file
+// and only renamed once it is complete, so the directory never holds a
+// broken chunk.  Running again on the same directory picks up where the
+// last run stopped: complete chunks are counted towards the games asked
+// for, and a .part file left by a run that died is thrown away.
+//
+// Each worker searches on its own thread (an MctsEngine with no threads
+// of its own), so the workers keep that many cores busy, while writing a
+// game takes microseconds; the progress report shows how much of its time
+// the writer spends busy.
+//
+// Usage: java SelfPlay <output directory> [games] [threads] [playouts] [random moves] [rows] [columns] [games per chunk]
+public class SelfPlay
+{
+	private static final String CHUNK_PREFIX = "selfplay-";
+	private static final String CHUNK_SUFFIX = ".hexj.gz";
+	private static final String PART_SUFFIX = ".part";
+
+	// How often progress is reported
+	private static final long REPORT_INTERVAL_NANOS = 10000000000L;
+
+	// Finished games waiting for the writer, per worker
+	private static final int QUEUED_GAMES_PER_THREAD = 4;
+
+	// A finished game on its way to the writer
+	private static class Game
+	{
+		private final int[] moves;
+		private final int winner;
+
+		Game(int[] moves, int winner)
+		{
+			this.moves = moves;
+			this.winner = winner;
+		}
+	}
+
+	// Put on the queue by each worker when it is done
+	private static final Game DONE = new Game(new int[0], Board.PLAYER_NONE);
+
+	private final File directory;
+	private final int rows;
+	private final int columns;
+	private final int threads;
+	private final long playouts;
+	private final int randomMoves;
+	private final int gamesPerChunk;
+	private final String engineName;
+
+	private final BlockingQueue<Game> queue;
+	private final AtomicLong nextGame = new AtomicLong();
+	private volatile Throwable workerFailure;
+
+	// The chunk being written
+	private int chunkNumber;
+	private File partFile;
+	private GameJournalWriter journal;
+	private int gamesInChunk;
+
+	// Constructs a generator that writes to the specified directory, with
+	// the specified number of worker threads, playouts per move, random
+	// moves at the start of each game, board size and games per chunk
+	public SelfPlay(File directory, int threads, long playouts, int randomMoves, int rows, int columns,
+			int gamesPerChunk)
+	{
+		this.directory = directory;
+		this.threads = threads;
+		this.playouts = playouts;
+		this.randomMoves = randomMoves;
+		this.rows = rows;
+		this.columns = columns;
+		this.gamesPerChunk = gamesPerChunk;
+		this.engineName = "MctsEngine:" + playouts;
+		this.queue = new ArrayBlockingQueue<Game>(threads * QUEUED_GAMES_PER_THREAD);
+	}
+
+	// Generates games until the directory holds the specified number of
+	// them, and returns how many this run added
+	public long run(long totalGames) throws IOException, InterruptedException
+	{
+		if (!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Cannot create " + directory);
+		}
+		long existing = resume();
+		final long toPlay = Math.max(0, totalGames - existing);
+		if (existing > 0)
+		{
+			System.out.printf("Resuming: %d games already in %d chunks%n", existing, chunkNumber);
+		}
+
+		nextGame.set(0);
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++)
+		{
+			workers[i] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					playGames(toPlay);
+				}
+			}, "SelfPlay " + i);
+			workers[i].start();
+		}
+
+		// Write on this thread until every worker is done
+		long start = System.nanoTime();
+		long nextReport = start + REPORT_INTERVAL_NANOS;
+		long busyNanos = 0;
+		long written = 0;
+		int workersLeft = threads;
+		try
+		{
+			while (workersLeft > 0)
+			{
+				Game game = queue.poll(100, TimeUnit.MILLISECONDS);
+				long now = System.nanoTime();
+				if (game == DONE)
+				{
+					workersLeft--;
+				}
+				else if (game != null)
+				{
+					write(game);
+					written++;
+					busyNanos += System.nanoTime() - now;
+				}
+
+				if (now >= nextReport)
+				{
+					report(existing + written, written, now - start, busyNanos);
+					nextReport += REPORT_INTERVAL_NANOS;
+				}
+			}
+			if (journal != null)
+			{
+				finishChunk();
+			}
+		}
+		finally
+		{
+			for (Thread worker : workers)
+			{
+				worker.interrupt();
+			}
+			if (journal != null)
+			{
+				journal.close();
+			}
+		}
+
+		if (workerFailure != null)
+		{
+			throw new IllegalStateException("A self-play worker failed", workerFailure);
+		}
+		report(existing + written, written, System.nanoTime() - start, busyNanos);
+		return written;
+	}
+
+	// The loop run by each worker: plays games until toPlay have been
+	// started, passing each one to the writer
+	private void playGames(long toPlay)
+	{
+		MctsEngine engine = new MctsEngine(playouts);
+		try
+		{
+			while (nextGame.getAndIncrement() < toPlay && workerFailure == null)
+			{
+				queue.put(playGame(engine));
+			}
+		}
+		catch (InterruptedException e)
+		{
+			return;
+		}
+		catch (RuntimeException e)
+		{
+			workerFailure = e;
+		}
+
+		try
+		{
+			queue.put(DONE);
+		}
+		catch (InterruptedException e)
+		{
+			// The writer has given up already
+		}
+	}
+
+	// Plays one game from the empty board, the first randomMoves moves
+	// at random and the rest chosen by the engine
+	private Game playGame(MctsEngine engine)
+	{
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Board board = new Board(rows, columns);
+		int[] moves = new int[rows * columns];
+		int moveCount = 0;
+		int player = Board.PLAYER_1;
+		while (board.getCurrentWinner() == Board.PLAYER_NONE)
+		{
+			int move;
+			if (moveCount < randomMoves)
+			{
+				do
+				{
+					move = random.nextInt(moves.length);
+				}
+				while (board.getPlayer(move) != Board.PLAYER_NONE);
+			}
+			else
+			{
+				move = engine.search(board, player);
+			}
+			board.setPlayer(move, player);
+			moves[moveCount++] = move;
+			player = 3 - player;
+		}
+		return new Game(Arrays.copyOf(moves, moveCount), board.getCurrentWinner());
+	}
+
+	// Appends a game to the current chunk, starting a new chunk first if
+	// there is none, and finishing the chunk once it is full
+	private void write(Game game) throws IOException
+	{
+		if (journal == null)
+		{
+			partFile = new File(directory, chunkName(chunkNumber) + PART_SUFFIX);
+			journal = new GameJournalWriter(new GZIPOutputStream(new FileOutputStream(partFile), 1 << 16));
+			gamesInChunk = 0;
+		}
+
+		journal.begin(new Board(rows, columns), engineName, engineName, Board.PLAYER_1);
+		for (int move : game.moves)
+		{
+			journal.move(move);
+		}
+		journal.end(game.winner);
+		gamesInChunk++;
+
+		if (gamesInChunk == gamesPerChunk)
+		{
+			finishChunk();
+		}
+	}
+
+	// Closes the current chunk and gives it its final name
+	private void finishChunk() throws IOException
+	{
+		journal.close();
+		journal = null;
+		Files.move(partFile.toPath(), new File(directory, chunkName(chunkNumber)).toPath(),
+				StandardCopyOption.ATOMIC_MOVE);
+		chunkNumber++;
+	}
+
+	// Counts the games in the complete chunks already in the directory,
+	// sets chunkNumber to follow the last of them, and deletes any chunk
+	// a previous run did not finish
+	private long resume() throws IOException
+	{
+		long games = 0;
+		chunkNumber = 0;
+		File[] files = directory.listFiles();
+		for (File file : files == null ? new File[0] : files)
+		{
+			String name = file.getName();
+			if (!name.startsWith(CHUNK_PREFIX))
+			{
+				continue;
+			}
+			if (name.endsWith(PART_SUFFIX))
+			{
+				System.out.println("Discarding unfinished chunk " + name);
+				Files.delete(file.toPath());
+			}
+			else if (name.endsWith(CHUNK_SUFFIX))
+			{
+				String number = name.substring(CHUNK_PREFIX.length(), name.length() - CHUNK_SUFFIX.length());
+				chunkNumber = Math.max(chunkNumber, Integer.parseInt(number) + 1);
+				GameJournalReader reader = new GameJournalReader(new GZIPInputStream(new FileInputStream(file)));
+				try
+				{
+					while (reader.next())
+					{
+						games++;
+					}
+				}
+				finally
+				{
+					reader.close();
+				}
+			}
+		}
+		return games;
+	}
+
+	private static String chunkName(int number)
+	{
+		return String.format("%s%06d%s", CHUNK_PREFIX, number, CHUNK_SUFFIX);
+	}
+
+	private void report(long total, long written, long elapsedNanos, long busyNanos)
+	{
+		double seconds = elapsedNanos / 1e9;
+		System.out.printf("%d games (%d this run), %.2f games/sec, queue %d/%d, writer busy %.2f%%%n", total,
+				written, seconds > 0 ? written / seconds : 0, queue.size(), threads * QUEUED_GAMES_PER_THREAD,
+				elapsedNanos > 0 ? 100.0 * busyNanos / elapsedNanos : 0);
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if (args.length < 1)
+		{
+			System.out.println("Usage: java SelfPlay <output directory> [games] [threads] [playouts] [random moves] [rows] [columns] [games per chunk]");
+			return;
+		}
+
+		long games = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		long playouts = args.length > 3 ? Long.parseLong(args[3]) : 2000;
+		int randomMoves = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+		int rows = args.length > 5 ? Integer.parseInt(args[5]) : 11;
+		int columns = args.length > 6 ? Integer.parseInt(args[6]) : rows;
+		int gamesPerChunk = args.length > 7 ? Integer.parseInt(args[7]) : 10000;
+
+		SelfPlay selfPlay = new SelfPlay(new File(args[0]), threads, playouts, randomMoves, rows, columns,
+				gamesPerChunk);
+		selfPlay.run(games);
+	}
+}
@@ -0,0 +1,310 @@
+import java.util.Arrays;
+
+// Solves small positions exactly: finds out which player wins with perfect
+// play, and a winning move if it is the player to move.
+//
+// The search is depth-first proof-number search (df-pn).  Every position
+// has a proof number (how many more positions must be solved, at least, to
+// prove a win for the player to move) and a disproof number (the same for
+// a loss); the search always works on the most proving position, backs
+// off when a position's numbers pass the thresholds its parent gave it,
+// and keeps the numbers in a TranspositionTable, so positions reached by
+// different move orders are solved once.
+//
+// At each position, H-search (see VirtualConnections) settles many
+// positions without searching them: the player to move wins if its edges
+// are virtually or semi-connected, and loses if the opponent's edges are
+// virtually connected.  Otherwise, the player to move only has to try the
+// spaces common to all of the opponent's semi-connections between its
+// edges, since a move anywhere else lets the opponent connect.
+//
+// Usage: java Solver <board file>...  (the player with fewer pieces moves
+// next, player 1 if they have the same number)
+public class Solver
+{
+	// Proof and disproof numbers stop at this value, which means "infinite"
+	private static final int INFINITY = (1 << 28) - 1;
+
+	// Mixed into the key of a position with player 2 to move
+	private static final long PLAYER_2_TO_MOVE = 0x2545F4914F6CDD1DL;
+
+	private final TranspositionTable table;
+	private final VirtualConnections[] connections;
+
+	private Board board;
+	private long nodes;
+	private long nodeLimit = Long.MAX_VALUE;
+
+	private int winningMove;
+	private long lastNodes;
+	private long lastElapsedNanos;
+
+	// Constructs a solver for boards of the specified size, which can have
+	// at most 64 spaces
+	public Solver(int rows, int columns)
+	{
+		connections = new VirtualConnections[] { null,
+				new VirtualConnections(rows, columns), new VirtualConnections(rows, columns) };
+		table = new TranspositionTable(1 << 20);
+	}
+
+	// Makes every following solve give up after searching the specified
+	// number of positions
+	public void setNodeLimit(long nodeLimit)
+	{
+		this.nodeLimit = nodeLimit;
+	}
+
+	// Solves the position on the specified Board with the specified player
+	// to move.  Returns the winner, or PLAYER_NONE if the node limit was
+	// reached first.
+	public int solve(Board board, int player)
+	{
+		if (board.getCurrentWinner() != Board.PLAYER_NONE)
+		{
+			throw new IllegalArgumentException("The game on this board is already over");
+		}
+
+		long start = System.nanoTime();
+		this.board = new Board(board);
+		nodes = 0;
+		winningMove = -1;
+
+		long result = search(player, INFINITY, INFINITY);
+		int winner = Board.PLAYER_NONE;
+		if (proofOf(result) == 0)
+		{
+			winner = player;
+			winningMove = findWinningMove(player);
+		}
+		else if (disproofOf(result) == 0)
+		{
+			winner = 3 - player;
+		}
+
+		lastNodes = nodes;
+		lastElapsedNanos = System.nanoTime() - start;
+		this.board = null;
+		return winner;
+	}
+
+	// Returns the board index of a winning move found by the last solve,
+	// or -1 if the player to move loses (or the solve gave up)
+	public int getWinningMove()
+	{
+		return winningMove;
+	}
+
+	// Returns the number of positions the last solve searched
+	public long getNodes()
+	{
+		return lastNodes;
+	}
+
+	// Returns how long the last solve took, in nanoseconds
+	public long getElapsedNanos()
+	{
+		return lastElapsedNanos;
+	}
+
+	// Searches the current position until its proof number reaches
+	// proofThreshold or its disproof number reaches disproofThreshold, and
+	// returns both numbers (see pack)
+	private long search(int player, int proofThreshold, int disproofThreshold)
+	{
+		nodes++;
+		long key = keyOf(board.getHash(), player);
+		long stored = table.get(key);
+		if (stored != TranspositionTable.MISSING && (proofOf(stored) == 0 || disproofOf(stored) == 0))
+		{
+			return stored;
+		}
+
+		int[] moves = evaluate(player);
+		if (moves == null)
+		{
+			return store(key, 0, INFINITY, 1);
+		}
+		if (moves.length == 0)
+		{
+			return store(key, INFINITY, 0, 1);
+		}
+
+		// Start each move from what the table knows about it
+		int[] proofs = new int[moves.length];
+		int[] disproofs = new int[moves.length];
+		long positionHash = board.getHash();
+		for (int i = 0; i < moves.length; i++)
+		{
+			long child = table.get(keyOf(positionHash ^ Board.getZobristKey(moves[i], player), 3 - player));
+			proofs[i] = child == TranspositionTable.MISSING ? 1 : proofOf(child);
+			disproofs[i] = child == TranspositionTable.MISSING ? 1 : disproofOf(child);
+		}
+
+		long startNodes = nodes;
+		while (true)
+		{
+			// This position is won if any move leads to a lost position for
+			// the opponent, and lost if all of them lead to won ones
+			int proof = INFINITY;
+			int disproof = 0;
+			int best = 0;
+			int secondBestDisproof = INFINITY;
+			for (int i = 0; i < moves.length; i++)
+			{
+				disproof = Math.min(INFINITY, disproof + proofs[i]);
+				if (disproofs[i] < proof)
+				{
+					secondBestDisproof = proof;
+					proof = disproofs[i];
+					best = i;
+				}
+				else if (disproofs[i] < secondBestDisproof)
+				{
+					secondBestDisproof = disproofs[i];
+				}
+			}
+
+			if (proof >= proofThreshold || disproof >= disproofThreshold || nodes >= nodeLimit)
+			{
+				return store(key, proof, disproof, nodes - startNodes);
+			}
+
+			int childProofThreshold = disproofThreshold - disproof + proofs[best];
+			int childDisproofThreshold = Math.min(proofThreshold, secondBestDisproof + 1);
+			board.makeMove(moves[best], player);
+			long child = search(3 - player, childProofThreshold, childDisproofThreshold);
+			board.undoMove();
+			proofs[best] = proofOf(child);
+			disproofs[best] = disproofOf(child);
+		}
+	}
+
+	// Returns the moves worth trying for the specified player in the
+	// current position: an empty array if the player has lost, or null if
+	// it has won without searching
+	private int[] evaluate(int player)
+	{
+		// The opponent's last move won the game
+		if (board.getCurrentWinner() != Board.PLAYER_NONE)
+		{
+			return new int[0];
+		}
+
+		VirtualConnections mine = connections[player];
+		mine.compute(board, player);
+		if (mine.edgesConnected() || mine.edgesSemiConnected())
+		{
+			return null;
+		}
+
+		VirtualConnections theirs = connections[3 - player];
+		theirs.compute(board, 3 - player);
+		if (theirs.edgesConnected())
+		{
+			return new int[0];
+		}
+
+		long mustPlay = theirs.getMustPlay();
+		int spaces = board.getRows() * board.getColumns();
+		int count = 0;
+		int[] moves = new int[spaces];
+		for (int i = 0; i < spaces; i++)
+		{
+			if (board.getPlayer(i) == Board.PLAYER_NONE && (mustPlay & (1L << i)) != 0)
+			{
+				moves[count++] = i;
+			}
+		}
+		return Arrays.copyOf(moves, count);
+	}
+
+	// Finds a move that wins for the specified player in the current
+	// position, which has been proved won
+	private int findWinningMove(int player)
+	{
+		int spaces = board.getRows() * board.getColumns();
+		for (int pass = 0; pass < 2; pass++)
+		{
+			for (int move = 0; move < spaces; move++)
+			{
+				if (board.getPlayer(move) != Board.PLAYER_NONE)
+				{
+					continue;
+				}
+
+				// First look for a move already proved, then solve the rest
+				board.makeMove(move, player);
+				long child = table.get(keyOf(board.getHash(), 3 - player));
+				if (pass == 1 && (child == TranspositionTable.MISSING || proofOf(child) != INFINITY))
+				{
+					child = search(3 - player, INFINITY, INFINITY);
+				}
+				board.undoMove();
+				if (child != TranspositionTable.MISSING && proofOf(child) == INFINITY)
+				{
+					return move;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private long store(long key, int proof, int disproof, long work)
+	{
+		long value = pack(proof, disproof, work);
+		table.put(key, value);
+		return value;
+	}
+
+	private static long keyOf(long hash, int player)
+	{
+		return player == Board.PLAYER_2 ? hash ^ PLAYER_2_TO_MOVE : hash;
+	}
+
+	// Packs proof and disproof numbers into a table value, with the log of
+	// the work that went into them as its priority
+	private static long pack(int proof, int disproof, long work)
+	{
+		long priority = Math.min(254, 64 - Long.numberOfLeadingZeros(work));
+		return (priority << 56) | ((long) proof << 28) | disproof;
+	}
+
+	private static int proofOf(long value)
+	{
+		return (int) (value >>> 28) & INFINITY;
+	}
+
+	private static int disproofOf(long value)
+	{
+		return (int) value & INFINITY;
+	}
+
+	public static void main(String[] args)
+	{
+		for (String fileName : args)
+		{
+			Board board = BoardLoader.load(fileName);
+			int player = BoardLoader.playerToMove(board);
+
+			if (board.getCurrentWinner() != Board.PLAYER_NONE)
+			{
+				System.out.println(fileName + ": already won by player " + board.getCurrentWinner());
+				continue;
+			}
+			if (board.getRows() * board.getColumns() > 64)
+			{
+				System.out.println(fileName + ": too big to solve (at most 64 spaces)");
+				continue;
+			}
+
+			Solver solver = new Solver(board.getRows(), board.getColumns());
+			int winner = solver.solve(board, player);
+			int move = solver.getWinningMove();
+			System.out.printf("%s: player %d to move, player %d wins%s (%d positions, %.1f ms)%n",
+					fileName, player, winner,
+					move < 0 ? "" : ", e.g. row " + move / board.getColumns() + ", column " + move % board.getColumns(),
+					solver.getNodes(), solver.getElapsedNanos() / 1e6);
+		}
+	}
+}
@@ -0,0 +1,13 @@
+// A Player that plays under a time control.  When a game is played with a
+// clock (see GameClock), a TimedPlayer is told how much time it has left,
+// and is expected to answer well within that.  A player that runs out of
+// time loses the game, so a search-based player should stop searching when
+// the time it set aside for a move is used up, and return the best move it
+// has found so far.  Without a clock, the plain getNextMove is used.
+public interface TimedPlayer extends Player
+{
+	// Returns the Location where this Player chooses to move, given that
+	// its clock shows remainingNanos, and that incrementNanos will be added
+	// to the clock once the move is made
+	Location getNextMove(Board board, int player, long remainingNanos, long incrementNanos);
+}
@@ -0,0 +1,376 @@
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Plays many games between two kinds of Player, in parallel and without a
+// window, and reports how they did.  Players alternate colors from game to
+// game, and every game can start from a position read from a board file.
+//
+// Usage: java Tournament <playerA> <playerB> [games] [threads] [board file] [time control]
+//
+// A player is given as a class name, optionally followed by int or long
+// constructor arguments separated by colons, e.g. PlayerSmart:1:20000 for
+// a one-thread PlayerSmart running 20000 playouts per move.  Each thread
+// creates its own pair of players, reuses them for all of its games, and
+// closes them at the end if they hold threads (see PlayerSmart.close).
+// A time control is given in seconds per game, optionally followed by "+"
+// and seconds of increment per move, e.g. 60+0.5; a player that runs out
+// of time loses (see GameClock).  Give "-" as the board file to use a
+// time control on the default empty 11x11 board.
+public class Tournament
+{
+	// z-score of a 95% confidence interval
+	private static final double Z_95 = 1.96;
+
+	private final String playerASpec;
+	private final String playerBSpec;
+	private final Board start;
+	private final int startPlayer;
+	private final long[] timeControl;
+
+	private final AtomicInteger nextGame = new AtomicInteger();
+	private final AtomicInteger winsA = new AtomicInteger();
+	private final AtomicInteger winsAAsPlayer1 = new AtomicInteger();
+	private final AtomicInteger winsBAsPlayer1 = new AtomicInteger();
+	private final AtomicInteger totalMoves = new AtomicInteger();
+	private final AtomicInteger lossesOnTime = new AtomicInteger();
+
+	// Constructs a tournament between the specified players, with every
+	// game starting from the position on the specified Board, with the
+	// player who is due to move there (see BoardLoader.playerToMove) to move
+	public Tournament(String playerASpec, String playerBSpec, Board start)
+	{
+		this(playerASpec, playerBSpec, start, null);
+	}
+
+	// Constructs a tournament like the one above, with every game played
+	// under the specified time control (initial and increment nanoseconds,
+	// as returned by GameClock.parse), or none if it is null
+	public Tournament(String playerASpec, String playerBSpec, Board start, long[] timeControl)
+	{
+		this.playerASpec = playerASpec;
+		this.playerBSpec = playerBSpec;
+		this.start = start;
+		this.startPlayer = BoardLoader.playerToMove(start);
+		this.timeControl = timeControl;
+
+		// Fail now, rather than on every thread, if a player cannot be
+		// created, without creating one (and starting its threads)
+		PlayerSpec.parse(playerASpec);
+		PlayerSpec.parse(playerBSpec);
+	}
+
+	// Plays the specified number of games on the specified number of
+	// threads, and prints the results
+	public void run(final int games, int threads)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Callable<long[][]>> tasks = new ArrayList<Callable<long[][]>>();
+		for (int i = 0; i < threads; i++)
+		{
+			tasks.add(new Callable<long[][]>()
+			{
+				@Override
+				public long[][] call()
+				{
+					return playGames(games);
+				}
+			});
+		}
+
+		long startNanos = System.nanoTime();
+		long[] latenciesA = new long[0];
+		long[] latenciesB = new long[0];
+		try
+		{
+			for (Future<long[][]> future : executor.invokeAll(tasks))
+			{
+				long[][] latencies = future.get();
+				latenciesA = concat(latenciesA, latencies[0]);
+				latenciesB = concat(latenciesB, latencies[1]);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while playing", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Game failed", e.getCause());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+		int wins = winsA.get();
+		double rate = (double) wins / games;
+		double denominator = 1 + Z_95 * Z_95 / games;
+		double center = (rate + Z_95 * Z_95 / (2 * games)) / denominator;
+		double halfWidth = Z_95 * Math.sqrt(rate * (1 - rate) / games + Z_95 * Z_95 / (4.0 * games * games)) / denominator;
+
+		System.out.println(games + " games of " + playerASpec + " (A) vs " + playerBSpec + " (B) on " +
+				start.getRows() + "x" + start.getColumns() + ", " + threads + " thread(s)");
+		System.out.printf("A won %d (%.1f%%, 95%% CI %.1f%% - %.1f%%), B won %d%n",
+				wins, 100 * rate, 100 * (center - halfWidth), 100 * (center + halfWidth), games - wins);
+		System.out.printf("As player 1: A won %d of %d, B won %d of %d%n",
+				winsAAsPlayer1.get(), (games + 1) / 2, winsBAsPlayer1.get(), games / 2);
+		System.out.printf("%.1f games/sec, %.1f moves/game%n", games / seconds, (double) totalMoves.get() / games);
+		if (timeControl != null)
+		{
+			System.out.println(lossesOnTime.get() + " game(s) lost on time");
+		}
+		printLatencies("A", latenciesA);
+		printLatencies("B", latenciesB);
+	}
+
+	// Plays games until all of them have been claimed, with a pair of
+	// players of this thread's own that are closed afterwards, and returns
+	// the move latencies of player A and player B
+	private long[][] playGames(int games)
+	{
+		Player playerA = createPlayer(playerASpec);
+		Player playerB = null;
+		try
+		{
+			playerB = createPlayer(playerBSpec);
+			return playGames(games, playerA, playerB);
+		}
+		finally
+		{
+			closePlayer(playerA);
+			if (playerB != null)
+			{
+				closePlayer(playerB);
+			}
+		}
+	}
+
+	private long[][] playGames(int games, Player playerA, Player playerB)
+	{
+		long[][] latencies = { new long[64], new long[64] };
+		int[] latencyCounts = new int[2];
+
+		int game;
+		while ((game = nextGame.getAndIncrement()) < games)
+		{
+			// A is player 1 in even games, B in odd ones
+			boolean aFirst = game % 2 == 0;
+			GameClock clock = timeControl == null ? null : new GameClock(timeControl[0], timeControl[1]);
+			Match match = aFirst
+					? new Match(new Board(start), playerA, playerB, clock, startPlayer)
+					: new Match(new Board(start), playerB, playerA, clock, startPlayer);
+			int winner;
+			try
+			{
+				winner = match.play();
+			}
+			finally
+			{
+				if (clock != null)
+				{
+					clock.close();
+				}
+			}
+			if (match.getLostOnTime() != Board.PLAYER_NONE)
+			{
+				lossesOnTime.incrementAndGet();
+			}
+
+			boolean aWon = (winner == Board.PLAYER_1) == aFirst;
+			if (aWon)
+			{
+				winsA.incrementAndGet();
+			}
+			if (winner == Board.PLAYER_1)
+			{
+				(aFirst ? winsAAsPlayer1 : winsBAsPlayer1).incrementAndGet();
+			}
+			totalMoves.addAndGet(match.getMoveCount());
+
+			for (int move = 0; move < match.getMoveCount(); move++)
+			{
+				// Even moves were made by the player to move at the start
+				int mover = move % 2 == 0 ? startPlayer : 3 - startPlayer;
+				int who = (mover == Board.PLAYER_1) == aFirst ? 0 : 1;
+				if (latencyCounts[who] == latencies[who].length)
+				{
+					latencies[who] = Arrays.copyOf(latencies[who], latencyCounts[who] * 2);
+				}
+				latencies[who][latencyCounts[who]++] = match.getMoveNanos(move);
+			}
+		}
+
+		return new long[][] {
+			Arrays.copyOf(latencies[0], latencyCounts[0]),
+			Arrays.copyOf(latencies[1], latencyCounts[1]) };
+	}
+
+	// Releases whatever a player holds on to between moves, such as the
+	// search threads of a PlayerSmart, so that none of it outlives the
+	// tournament and competes with the next one for the cores
+	private static void closePlayer(Player player)
+	{
+		if (player instanceof AutoCloseable)
+		{
+			try
+			{
+				((AutoCloseable) player).close();
+			}
+			catch (Exception e)
+			{
+				throw new IllegalStateException("Cannot close " + player.getClass().getSimpleName(), e);
+			}
+		}
+	}
+
+	private static void printLatencies(String name, long[] latencies)
+	{
+		if (latencies.length == 0)
+		{
+			return;
+		}
+		Arrays.sort(latencies);
+		System.out.printf("%s move latency: p50 %s, p90 %s, p99 %s, max %s%n", name,
+				formatNanos(percentile(latencies, 0.50)), formatNanos(percentile(latencies, 0.90)),
+				formatNanos(percentile(latencies, 0.99)), formatNanos(latencies[latencies.length - 1]));
+	}
+
+	private static long percentile(long[] sorted, double fraction)
+	{
+		int index = (int) Math.ceil(fraction * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+
+	private static String formatNanos(long nanos)
+	{
+		if (nanos < 1000000)
+		{
+			return String.format("%.1f us", nanos / 1e3);
+		}
+		return String.format("%.1f ms", nanos / 1e6);
+	}
+
+	private static long[] concat(long[] a, long[] b)
+	{
+		long[] result = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+	// Creates a Player from a class name followed by optional
+	// colon-separated int or long constructor arguments
+	static Player createPlayer(String spec)
+	{
+		return PlayerSpec.parse(spec).newPlayer();
+	}
+
+	// A Player class's constructor and the arguments to call it with, as
+	// given by a player spec
+	private static class PlayerSpec
+	{
+		private final String spec;
+		private final Constructor<?> constructor;
+		private final Object[] arguments;
+
+		private PlayerSpec(String spec, Constructor<?> constructor, Object[] arguments)
+		{
+			this.spec = spec;
+			this.constructor = constructor;
+			this.arguments = arguments;
+		}
+
+		// Finds the constructor the specified spec calls for, throwing if
+		// there is no such Player class or constructor
+		static PlayerSpec parse(String spec)
+		{
+			String[] parts = spec.split(":");
+			Class<?> type;
+			try
+			{
+				type = Class.forName(parts[0]);
+			}
+			catch (ClassNotFoundException e)
+			{
+				throw new IllegalArgumentException("Cannot create player " + spec, e);
+			}
+			if (!Player.class.isAssignableFrom(type))
+			{
+				throw new IllegalArgumentException(parts[0] + " is not a Player");
+			}
+
+			for (Constructor<?> constructor : type.getConstructors())
+			{
+				Class<?>[] parameters = constructor.getParameterTypes();
+				if (parameters.length != parts.length - 1)
+				{
+					continue;
+				}
+
+				Object[] arguments = new Object[parameters.length];
+				boolean matches = true;
+				for (int i = 0; i < parameters.length && matches; i++)
+				{
+					if (parameters[i] == int.class)
+					{
+						arguments[i] = Integer.parseInt(parts[i + 1]);
+					}
+					else if (parameters[i] == long.class)
+					{
+						arguments[i] = Long.parseLong(parts[i + 1]);
+					}
+					else
+					{
+						matches = false;
+					}
+				}
+
+				if (matches)
+				{
+					return new PlayerSpec(spec, constructor, arguments);
+				}
+			}
+			throw new IllegalArgumentException("No constructor of " + parts[0] + " takes " +
+					(parts.length - 1) + " int or long argument(s)");
+		}
+
+		Player newPlayer()
+		{
+			try
+			{
+				return (Player) constructor.newInstance(arguments);
+			}
+			catch (ReflectiveOperationException e)
+			{
+				throw new IllegalArgumentException("Cannot create player " + spec, e);
+			}
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		if (args.length < 2)
+		{
+			System.out.println("Usage: java Tournament <playerA> <playerB> [games] [threads] [board file] [time control]");
+			return;
+		}
+
+		int games = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		Board start = args.length > 4 && !args[4].equals("-") ? BoardLoader.load(args[4]) : new Board(11, 11);
+
+		long[] timeControl = args.length > 5 ? GameClock.parse(args[5]) : null;
+
+		new Tournament(args[0], args[1], start, timeControl).run(games, threads);
+	}
+}
@@ -0,0 +1,169 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-size hash table from 64-bit position hashes (see Board.getHash) to
+// 64-bit values, meant to be shared by any number of search threads.
+//
+// The table is lock-free.  Each entry is two longs: the value, and the key
+// XORed with the value.  Two threads writing the same entry at once can
+// leave it with halves from different writes, but then the key no longer
+// checks out against the value and a lookup treats the entry as missing,
+// so a torn entry can never hand back a wrong value.
+//
+// Entries live in buckets of two.  The first entry of a bucket keeps
+// whichever value has the higher priority, and the second entry always
+// takes the newest value that did not make it into the first, so deep
+// results survive while recent ones still get a place.  The priority of a
+// value is its top byte (for example a search depth or the log of a visit
+// count); the other 56 bits are free for the caller.
+public class TranspositionTable
+{
+	// Returned by get when the table has no value for a key
+	public static final long MISSING = -1L;
+
+	private final AtomicLongArray entries;
+	private final int bucketMask;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder stores = new LongAdder();
+	private final LongAdder collisions = new LongAdder();
+
+	// Constructs a table that holds at least the specified number of
+	// entries (rounded up to a power of two)
+	public TranspositionTable(int capacity)
+	{
+		int buckets = Integer.highestOneBit(Math.max(2, capacity - 1) >>> 1) << 1;
+		if (buckets <= 0 || buckets > (1 << 28))
+		{
+			throw new IllegalArgumentException("Unsupported capacity: " + capacity);
+		}
+		bucketMask = buckets - 1;
+		entries = new AtomicLongArray(buckets * 4);
+	}
+
+	// Returns the value stored for the specified key, or MISSING
+	public long get(long key)
+	{
+		int base = bucketOf(key);
+		for (int slot = base; slot < base + 4; slot += 2)
+		{
+			long value = entries.get(slot + 1);
+			if ((entries.get(slot) ^ value) == key && value != 0)
+			{
+				hits.increment();
+				return value;
+			}
+		}
+		misses.increment();
+		return MISSING;
+	}
+
+	// Stores the specified value for the specified key.  The value must not
+	// be 0 or MISSING.
+	public void put(long key, long value)
+	{
+		if (value == 0 || value == MISSING)
+		{
+			throw new IllegalArgumentException("Cannot store " + value);
+		}
+		stores.increment();
+
+		int base = bucketOf(key);
+		long firstValue = entries.get(base + 1);
+		long firstKey = entries.get(base) ^ firstValue;
+
+		// The same position always replaces itself; otherwise the first entry
+		// only gives way to a value with at least its priority
+		if (firstValue == 0 || firstKey == key || priorityOf(value) >= priorityOf(firstValue))
+		{
+			if (firstValue != 0 && firstKey != key)
+			{
+				collisions.increment();
+				// The displaced entry gets a second chance in the other slot
+				write(base + 2, firstKey, firstValue);
+			}
+			write(base, key, value);
+			return;
+		}
+
+		long secondValue = entries.get(base + 3);
+		if (secondValue != 0 && (entries.get(base + 2) ^ secondValue) != key)
+		{
+			collisions.increment();
+		}
+		write(base + 2, key, value);
+	}
+
+	// Removes every entry and resets the counters
+	public void clear()
+	{
+		for (int i = 0; i < entries.length(); i++)
+		{
+			entries.set(i, 0);
+		}
+		hits.reset();
+		misses.reset();
+		stores.reset();
+		collisions.reset();
+	}
+
+	// Returns the number of entries this table can hold
+	public int getCapacity()
+	{
+		return entries.length() / 2;
+	}
+
+	// Returns the number of lookups that found a value
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	// Returns the number of lookups that found nothing
+	public long getMisses()
+	{
+		return misses.sum();
+	}
+
+	// Returns the number of values stored
+	public long getStores()
+	{
+		return stores.sum();
+	}
+
+	// Returns the number of stores that overwrote a different position
+	public long getCollisions()
+	{
+		return collisions.sum();
+	}
+
+	@Override
+	public String toString()
+	{
+		long lookups = getHits() + getMisses();
+		return "TranspositionTable[capacity=" + getCapacity() + ", hits=" + getHits() +
+				", misses=" + getMisses() + ", hit rate=" +
+				(lookups == 0 ? 0 : Math.round(100.0 * getHits() / lookups)) + "%" +
+				", stores=" + getStores() + ", collisions=" + getCollisions() + "]";
+	}
+
+	// Returns the priority of a value, stored in its top byte
+	public static int priorityOf(long value)
+	{
+		return (int) (value >>> 56);
+	}
+
+	private int bucketOf(long key)
+	{
+		// Use the high bits, since Zobrist keys are equally good everywhere and
+		// this leaves the low bits to tell apart entries in the same bucket
+		return ((int) (key >>> 32) & bucketMask) << 2;
+	}
+
+	private void write(int slot, long key, long value)
+	{
+		entries.set(slot, key ^ value);
+		entries.set(slot + 1, value);
+	}
+}
@@ -0,0 +1,299 @@
+import java.util.Arrays;
+
+
+/**
+ *  <tt>UndoableUnionFind</tt> is a weighted quick union by rank union-find data structure,
+ *  like <tt>WeightedQuickUnionUFCloneable</tt>, that can also roll back its most recent
+ *  <em>union</em> operations, and that only spends memory on the parts of it that are used.
+ *  <p>
+ *  Every site has one int: the site's parent, or, for a root, the bitwise complement of
+ *  its rank (always negative, since a rank is at most log<sub>2</sub> <em>N</em>), so the
+ *  ranks take no memory of their own.  A <em>union</em> only ever changes two of them: the
+ *  entry of the root with the lower rank, which is pointed at the other root, and, if the
+ *  ranks were equal, the rank of the other root.  Each <em>union</em> that merges two
+ *  components pushes the child root onto a trail, along with its rank and whether the rank
+ *  of its new parent went up, which is all that is needed to put both entries back.
+ *  <em>mark</em> returns the current position in the trail and <em>undo</em> rolls every
+ *  <em>union</em> made since that position back in constant time per <em>union</em>, so a
+ *  search can explore a move and take it back without copying anything.
+ *  <p>
+ *  <em>find</em> uses path halving, pointing every other site on the path at its
+ *  grandparent, but only while the trail is empty.  Once a <em>union</em> is on the trail,
+ *  a shortcut past its child root would survive the <em>undo</em> and leave sites in the
+ *  wrong component, so <em>find</em> leaves the paths alone until the trail is rolled back
+ *  or cleared.  Halving only ever moves a site closer to the root it already has, so
+ *  several threads can <em>find</em> at once as long as none of them makes a <em>union</em>.
+ *  <p>
+ *  The entries are kept in chunks of 4096 sites, and a chunk is only allocated the first
+ *  time one of its sites takes part in a <em>union</em>.  A huge union-find in which few
+ *  sites have been unioned, such as the one behind a big Board with few pieces on it,
+ *  takes little more than an array of chunk pointers, and copying it only copies the
+ *  chunks that exist.
+ *  <p>
+ *  <em>find</em> and <em>connected</em> take logarithmic time (in the worst case),
+ *  <em>union</em> takes logarithmic time plus amortized constant time for the trail and
+ *  for allocating chunks, and <em>count</em>, <em>mark</em> and <em>clearTrail</em> take
+ *  constant time.
+ */
+public class UndoableUnionFind {
+	private static final int CHUNK_BITS = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	// The entry of a root of rank 0
+	private static final int ROOT = ~0;
+
+	// Stands in for every chunk that has not been allocated yet, so that
+	// reading never has to check for one.  It is never written to.
+	private static final int[] UNALLOCATED = newChunk(CHUNK_SIZE);
+
+	private final int n;        // number of sites
+	private int[][] parents;    // parents[c][i] = parent of site c * CHUNK_SIZE + i, or ~rank for a root
+	private int count;          // number of components
+	private long[] trail;       // child root << 8 | its rank << 1 | 1 if its parent's rank went up, oldest first
+	private int trailSize;
+
+	/**
+	 * Initializes an empty union-find data structure with N isolated components 0 through N-1.
+	 * @throws java.lang.IllegalArgumentException if N < 0
+	 * @param N the number of objects
+	 */
+	public UndoableUnionFind(int N) {
+		if (N < 0) {
+			throw new IllegalArgumentException("Negative number of sites: " + N);
+		}
+		n = N;
+		count = N;
+		parents = new int[(int) ((N + (long) CHUNK_MASK) >>> CHUNK_BITS)][];
+		Arrays.fill(parents, UNALLOCATED);
+		trail = new long[16];
+	}
+
+	/**
+	 * Initializes a new union-find data structure with the same state as
+	 * the specified union-find data structure, including its trail, so the
+	 * clone can undo the same unions the original could.
+	 * @param original The original UndoableUnionFind instance whose state
+	 * will be copied (cloned) into the newly created object.
+	 */
+	public UndoableUnionFind(UndoableUnionFind original)
+	{
+		n = original.n;
+		count = original.count;
+		parents = new int[original.parents.length][];
+		for (int c = 0; c < parents.length; c++) {
+			int[] chunk = original.parents[c];
+			parents[c] = chunk == UNALLOCATED ? chunk : chunk.clone();
+		}
+		trail = Arrays.copyOf(original.trail, Math.max(16, original.trailSize));
+		trailSize = original.trailSize;
+	}
+
+	/**
+	 * Returns the number of components.
+	 * @return the number of components (between 1 and N)
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Returns roughly how many bytes of memory this union-find takes up: the
+	 * chunk pointers, the chunks that have been allocated, and the trail.
+	 * @return the approximate size of this union-find in bytes
+	 */
+	public long memoryBytes() {
+		long bytes = 8L * parents.length + 8L * trail.length;
+		for (int[] chunk : parents) {
+			if (chunk != UNALLOCATED) {
+				bytes += 4L * chunk.length;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the component identifier for the component containing site <tt>p</tt>.
+	 * @param p the integer representing one site
+	 * @return the component identifier for the component containing site <tt>p</tt>
+	 * @throws java.lang.IndexOutOfBoundsException unless 0 <= p < N
+	 */
+	public int find(int p) {
+		if (Metrics.ENABLED)
+			return findCounted(p);
+		if (p >= n)
+			throw outOfBounds(p);
+		if (trailSize > 0)
+			return findWithoutHalving(p);
+		while (true) {
+			int[] chunk = parents[p >>> CHUNK_BITS];
+			int parent = chunk[p & CHUNK_MASK];
+			if (parent < 0)
+				return p;
+			int grandparent = parents[parent >>> CHUNK_BITS][parent & CHUNK_MASK];
+			if (grandparent < 0)
+				return parent;
+			chunk[p & CHUNK_MASK] = grandparent;
+			p = grandparent;
+		}
+	}
+
+	// find, for while there are unions on the trail
+	private int findWithoutHalving(int p) {
+		int parent;
+		while ((parent = parents[p >>> CHUNK_BITS][p & CHUNK_MASK]) >= 0)
+			p = parent;
+		return p;
+	}
+
+	// find, recording the number of parent links followed in Metrics
+	private int findCounted(int p) {
+		if (p >= n)
+			throw outOfBounds(p);
+		int depth = 0;
+		int parent;
+		while ((parent = entryOf(p)) >= 0) {
+			if (trailSize == 0) {
+				int grandparent = entryOf(parent);
+				if (grandparent >= 0) {
+					parents[p >>> CHUNK_BITS][p & CHUNK_MASK] = grandparent;
+					parent = grandparent;
+				}
+			}
+			p = parent;
+			depth++;
+		}
+		Metrics.recordFind(depth);
+		return p;
+	}
+
+	/**
+	 * Are the two sites <tt>p</tt> and <tt>q</tt> in the same component?
+	 * @param p the integer representing one site
+	 * @param q the integer representing the other site
+	 * @return <tt>true</tt> if the two sites <tt>p</tt> and <tt>q</tt>
+	 *    are in the same component, and <tt>false</tt> otherwise
+	 * @throws java.lang.IndexOutOfBoundsException unless both 0 <= p < N and 0 <= q < N
+	 */
+	public boolean connected(int p, int q) {
+		return find(p) == find(q);
+	}
+
+	/**
+	 * Merges the component containing site<tt>p</tt> with the component
+	 * containing site <tt>q</tt>, recording the change on the trail.
+	 * @param p the integer representing one site
+	 * @param q the integer representing the other site
+	 * @throws java.lang.IndexOutOfBoundsException unless both 0 <= p < N and 0 <= q < N
+	 */
+	public void union(int p, int q)
+	{
+		int i = find(p);
+		int j = find(q);
+		if (i == j) return;
+
+		// make the root with the lower rank point to the other one (a
+		// higher rank is a more negative entry)
+		int[] chunkI = chunkOf(i);
+		int[] chunkJ = chunkOf(j);
+		int entryI = chunkI[i & CHUNK_MASK];
+		int entryJ = chunkJ[j & CHUNK_MASK];
+		if   (entryI > entryJ)
+		{
+			chunkI[i & CHUNK_MASK] = j;
+			push(i, entryI, false);
+		}
+		else
+		{
+			chunkJ[j & CHUNK_MASK] = i;
+			if (entryI == entryJ)
+			{
+				chunkI[i & CHUNK_MASK] = entryI - 1;
+			}
+			push(j, entryJ, entryI == entryJ);
+		}
+		count--;
+		if (Metrics.ENABLED) Metrics.recordUnion();
+	}
+
+	/**
+	 * Returns the current position in the trail, to be passed to <tt>undo</tt>
+	 * later to roll back every <em>union</em> made after this call.
+	 * @return the current position in the trail
+	 */
+	public int mark() {
+		return trailSize;
+	}
+
+	/**
+	 * Rolls back, most recent first, every <em>union</em> made since <tt>mark</tt>
+	 * returned the specified position.
+	 * @param mark a position previously returned by <tt>mark</tt>
+	 * @throws java.lang.IllegalArgumentException if the trail has already been
+	 *    rolled back or cleared past <tt>mark</tt>
+	 */
+	public void undo(int mark) {
+		if (mark < 0 || mark > trailSize) {
+			throw new IllegalArgumentException("Trail position " + mark + " is no longer available");
+		}
+		while (trailSize > mark) {
+			long entry = trail[--trailSize];
+			int child = (int) (entry >>> 8);
+			int[] chunk = parents[child >>> CHUNK_BITS];
+			if ((entry & 1) != 0) {
+				int parent = chunk[child & CHUNK_MASK];
+				parents[parent >>> CHUNK_BITS][parent & CHUNK_MASK]++;
+			}
+			chunk[child & CHUNK_MASK] = ~(int) ((entry >>> 1) & 0x7F);
+			count++;
+		}
+	}
+
+	/**
+	 * Forgets every <em>union</em> recorded on the trail so far, making them permanent.
+	 */
+	public void clearTrail() {
+		trailSize = 0;
+	}
+
+	// Negative sites need no check of their own: p >>> CHUNK_BITS is then
+	// far past the end of the chunk pointers.  Building the exception is
+	// kept out of find so that find stays small enough to be inlined.
+	private IndexOutOfBoundsException outOfBounds(int p) {
+		return new IndexOutOfBoundsException("Site " + p + " is not between 0 and " + (n - 1));
+	}
+
+	// Returns the parent of site p, or ~rank if p is a root
+	private int entryOf(int p) {
+		return parents[p >>> CHUNK_BITS][p & CHUNK_MASK];
+	}
+
+	// Returns the chunk holding site p, allocating it if it does not exist
+	// yet, for writing
+	private int[] chunkOf(int p) {
+		int c = p >>> CHUNK_BITS;
+		int[] chunk = parents[c];
+		if (chunk == UNALLOCATED) {
+			chunk = newChunk(Math.min(CHUNK_SIZE, n - (c << CHUNK_BITS)));
+			parents[c] = chunk;
+		}
+		return chunk;
+	}
+
+	// Returns a chunk of the specified size in which every site is a root
+	// of rank 0
+	private static int[] newChunk(int size) {
+		int[] chunk = new int[size];
+		Arrays.fill(chunk, ROOT);
+		return chunk;
+	}
+
+	// Records that root child, whose entry was the specified ~rank, was
+	// pointed at another root, and whether that root's rank went up
+	private void push(int child, int entry, boolean raisedRank) {
+		if (trailSize == trail.length) {
+			trail = Arrays.copyOf(trail, trailSize * 2);
+		}
+		trail[trailSize++] = (long) child << 8 | ~entry << 1 | (raisedRank ? 1 : 0);
+	}
+}
@@ -0,0 +1,444 @@
+import java.util.Arrays;
+
+// Virtual connections of one player on a position, found by H-search
+// (Anshelevich).  A virtual connection (VC) between two nodes is a set of
+// empty spaces, its carrier, within which the player can connect the two
+// nodes even if the opponent moves first; a semi-connection (SC) is one the
+// player can complete by moving first.  The nodes are the player's two
+// edges, its groups of connected pieces (a group touching an edge is part
+// of that edge), and the empty spaces.
+//
+// Starting from the connections between adjacent nodes, two rules are
+// applied until nothing new turns up:
+//
+//   AND: a VC from x to z and one from z to y, with disjoint carriers that
+//        avoid x and y, make a VC from x to y if z is the player's own, or
+//        an SC (with z added to the carrier) if z is empty
+//   OR:  SCs between x and y whose carriers have nothing in common make
+//        a VC, whose carrier is all of theirs together
+//
+// Bridges fall out of the OR rule, and so do the simpler edge templates.
+// Only a few carriers are kept per pair of nodes, so not every connection
+// is found, but every one that is found is real.  Carriers are bit sets of
+// spaces held in a long, so boards can have at most 64 spaces.
+public class VirtualConnections
+{
+	// Most carriers kept for each pair of nodes, of each kind
+	private static final int MAX_CARRIERS = 4;
+
+	// Most rounds of the AND rule per position
+	private static final int MAX_ROUNDS = 8;
+
+	private final int rows;
+	private final int columns;
+	private final int spaces;
+	private final int nodes;
+	private final int firstEdge;
+	private final int secondEdge;
+	private final int[][] neighbors;
+
+	// For each space: the node it belongs to (itself if empty, its group's
+	// node if it is the player's, -1 if it is the opponent's)
+	private final int[] nodeOf;
+
+	// The nodes in play, and which of them are empty spaces
+	private final int[] liveNodes;
+	private int liveNodeCount;
+	private final boolean[] isEmpty;
+
+	// Carriers of each pair of nodes x < y, at (x * nodes + y) * MAX_CARRIERS,
+	// and the round of the AND rule in which each VC was found
+	private final long[] vcs;
+	private final int[] vcRounds;
+	private final int[] vcCounts;
+	private final long[] scs;
+	private final int[] scCounts;
+
+	// Scratch space for the AND rule and for finding groups
+	private final int[] partners;
+	private final long[] partnerCarriers;
+	private final int[] partnerRounds;
+	private final int[] stack;
+
+	private boolean edgesJoined;
+	private boolean changed;
+	private int round;
+
+	// Constructs an H-search for boards of the specified size
+	public VirtualConnections(int rows, int columns)
+	{
+		if (rows * columns > 64)
+		{
+			throw new IllegalArgumentException("H-search supports boards of at most 64 spaces, not " +
+					rows + "x" + columns);
+		}
+
+		this.rows = rows;
+		this.columns = columns;
+		this.spaces = rows * columns;
+		this.nodes = spaces + 2;
+		this.firstEdge = spaces;
+		this.secondEdge = spaces + 1;
+
+		int[] rowOffsets = { 0, 0, -1, -1, 1, 1 };
+		int[] columnOffsets = { -1, 1, 0, 1, 0, -1 };
+		neighbors = new int[spaces][];
+		for (int i = 0; i < spaces; i++)
+		{
+			int[] found = new int[6];
+			int count = 0;
+			for (int direction = 0; direction < 6; direction++)
+			{
+				int row = i / columns + rowOffsets[direction];
+				int column = i % columns + columnOffsets[direction];
+				if (row >= 0 && row < rows && column >= 0 && column < columns)
+				{
+					found[count++] = row * columns + column;
+				}
+			}
+			neighbors[i] = Arrays.copyOf(found, count);
+		}
+
+		nodeOf = new int[spaces];
+		liveNodes = new int[nodes];
+		isEmpty = new boolean[nodes];
+		vcs = new long[nodes * nodes * MAX_CARRIERS];
+		vcRounds = new int[nodes * nodes * MAX_CARRIERS];
+		vcCounts = new int[nodes * nodes];
+		scs = new long[nodes * nodes * MAX_CARRIERS];
+		scCounts = new int[nodes * nodes];
+		partners = new int[nodes * MAX_CARRIERS];
+		partnerCarriers = new long[nodes * MAX_CARRIERS];
+		partnerRounds = new int[nodes * MAX_CARRIERS];
+		stack = new int[spaces];
+	}
+
+	// Finds the virtual connections of the specified player on the
+	// specified Board, replacing those of the last position computed
+	public void compute(Board board, int player)
+	{
+		Arrays.fill(vcCounts, 0);
+		Arrays.fill(scCounts, 0);
+		edgesJoined = false;
+		round = 0;
+		findNodes(board, player);
+
+		// Adjacent nodes are connected with nothing in between
+		for (int cell = 0; cell < spaces; cell++)
+		{
+			if (!isEmpty[cell] || nodeOf[cell] != cell)
+			{
+				continue;
+			}
+			for (int neighbor : neighbors[cell])
+			{
+				if (nodeOf[neighbor] >= 0 && nodeOf[neighbor] != cell)
+				{
+					addVc(cell, nodeOf[neighbor], 0);
+				}
+			}
+			int edge = edgeOf(cell, player);
+			if (edge >= 0)
+			{
+				addVc(cell, edge, 0);
+			}
+			if (edge == firstEdge && touchesSecondEdge(cell, player))
+			{
+				addVc(cell, secondEdge, 0);
+			}
+		}
+
+		// Each round only combines pairs of VCs that it has not combined
+		// before, that is, pairs with at least one VC found last round
+		for (round = 1; round <= MAX_ROUNDS; round++)
+		{
+			changed = false;
+			for (int i = 0; i < liveNodeCount; i++)
+			{
+				applyAnd(liveNodes[i]);
+			}
+			if (!changed)
+			{
+				break;
+			}
+		}
+	}
+
+	// Returns whether the player's two edges are virtually connected, so
+	// that the player wins even with the opponent to move
+	public boolean edgesConnected()
+	{
+		return edgesJoined || vcCounts[firstEdge * nodes + secondEdge] > 0;
+	}
+
+	// Returns whether the player's two edges are semi-connected, so that
+	// the player wins with a move of its own
+	public boolean edgesSemiConnected()
+	{
+		return scCounts[firstEdge * nodes + secondEdge] > 0;
+	}
+
+	// Returns the spaces the opponent has to move in to stop the player
+	// from winning, as a bit set: the spaces every semi-connection between
+	// the player's edges has in common.  All spaces if there are none.
+	public long getMustPlay()
+	{
+		int pair = firstEdge * nodes + secondEdge;
+		long region = -1L;
+		for (int i = 0; i < scCounts[pair]; i++)
+		{
+			region &= scs[pair * MAX_CARRIERS + i];
+		}
+		return region;
+	}
+
+	// Labels every space with its node
+	private void findNodes(Board board, int player)
+	{
+		Arrays.fill(nodeOf, -2);
+		Arrays.fill(isEmpty, false);
+		liveNodeCount = 0;
+		liveNodes[liveNodeCount++] = firstEdge;
+		liveNodes[liveNodeCount++] = secondEdge;
+
+		for (int cell = 0; cell < spaces; cell++)
+		{
+			int occupant = board.getPlayer(cell);
+			if (occupant == Board.PLAYER_NONE)
+			{
+				nodeOf[cell] = cell;
+				isEmpty[cell] = true;
+				liveNodes[liveNodeCount++] = cell;
+			}
+			else if (occupant != player)
+			{
+				nodeOf[cell] = -1;
+			}
+		}
+
+		// Each group of the player's pieces becomes one node: an edge if it
+		// touches one, or else its first space
+		for (int cell = 0; cell < spaces; cell++)
+		{
+			if (nodeOf[cell] != -2)
+			{
+				continue;
+			}
+
+			int size = 0;
+			stack[size++] = cell;
+			nodeOf[cell] = cell;
+			boolean first = false;
+			boolean second = false;
+			for (int next = 0; next < size; next++)
+			{
+				int member = stack[next];
+				int edge = edgeOf(member, player);
+				first |= edge == firstEdge;
+				second |= edge == secondEdge || touchesSecondEdge(member, player);
+				for (int neighbor : neighbors[member])
+				{
+					if (nodeOf[neighbor] == -2)
+					{
+						nodeOf[neighbor] = cell;
+						stack[size++] = neighbor;
+					}
+				}
+			}
+
+			edgesJoined |= first && second;
+			int node = first ? firstEdge : second ? secondEdge : cell;
+			for (int i = 0; i < size; i++)
+			{
+				nodeOf[stack[i]] = node;
+			}
+			if (node == cell)
+			{
+				liveNodes[liveNodeCount++] = cell;
+			}
+		}
+	}
+
+	// Returns the player's edge the specified space lies on (the first if
+	// it lies on both), or -1
+	private int edgeOf(int cell, int player)
+	{
+		int lineIndex = player == Board.PLAYER_1 ? cell / columns : cell % columns;
+		int lineCount = player == Board.PLAYER_1 ? rows : columns;
+		if (lineIndex == 0)
+		{
+			return firstEdge;
+		}
+		return lineIndex == lineCount - 1 ? secondEdge : -1;
+	}
+
+	// Returns whether a space on the first edge also lies on the second,
+	// which happens on boards one space wide
+	private boolean touchesSecondEdge(int cell, int player)
+	{
+		int lineIndex = player == Board.PLAYER_1 ? cell / columns : cell % columns;
+		int lineCount = player == Board.PLAYER_1 ? rows : columns;
+		return lineIndex == lineCount - 1;
+	}
+
+	// Combines every pair of VCs that meet at the specified node
+	private void applyAnd(int middle)
+	{
+		int count = 0;
+		for (int i = 0; i < liveNodeCount; i++)
+		{
+			int other = liveNodes[i];
+			if (other == middle)
+			{
+				continue;
+			}
+			int pair = pairOf(other, middle);
+			for (int j = 0; j < vcCounts[pair]; j++)
+			{
+				partners[count] = other;
+				partnerCarriers[count] = vcs[pair * MAX_CARRIERS + j];
+				partnerRounds[count] = vcRounds[pair * MAX_CARRIERS + j];
+				count++;
+			}
+		}
+
+		long middleBit = isEmpty[middle] ? 1L << middle : 0;
+		for (int i = 0; i < count; i++)
+		{
+			int x = partners[i];
+			long a = partnerCarriers[i];
+			boolean aIsNew = partnerRounds[i] >= round - 1;
+			for (int j = i + 1; j < count; j++)
+			{
+				int y = partners[j];
+				long b = partnerCarriers[j];
+				if ((!aIsNew && partnerRounds[j] < round - 1) || x == y || (a & b) != 0 || (a & bitOf(y)) != 0 || (b & bitOf(x)) != 0)
+				{
+					continue;
+				}
+				if (middleBit == 0)
+				{
+					addVc(x, y, a | b);
+				}
+				else
+				{
+					addSc(x, y, a | b | middleBit);
+				}
+			}
+		}
+	}
+
+	private long bitOf(int node)
+	{
+		return node < spaces && isEmpty[node] ? 1L << node : 0;
+	}
+
+	private int pairOf(int x, int y)
+	{
+		return x < y ? x * nodes + y : y * nodes + x;
+	}
+
+	private void addVc(int x, int y, long carrier)
+	{
+		int pair = pairOf(x, y);
+		int slot = add(vcs, vcCounts, pair, carrier);
+		if (slot >= 0)
+		{
+			vcRounds[pair * MAX_CARRIERS + slot] = round;
+			changed = true;
+		}
+	}
+
+	private void addSc(int x, int y, long carrier)
+	{
+		int pair = pairOf(x, y);
+
+		// Not new if a VC already does the job with part of this carrier
+		for (int i = 0; i < vcCounts[pair]; i++)
+		{
+			long vc = vcs[pair * MAX_CARRIERS + i];
+			if ((vc & carrier) == vc)
+			{
+				return;
+			}
+		}
+		if (add(scs, scCounts, pair, carrier) < 0)
+		{
+			return;
+		}
+		changed = true;
+
+		// OR rule: look for SCs that, together with this one, leave the
+		// opponent no space that breaks them all
+		long common = carrier;
+		long union = carrier;
+		for (int i = 0; i < scCounts[pair] && common != 0; i++)
+		{
+			long sc = scs[pair * MAX_CARRIERS + i];
+			if ((common & sc) != common)
+			{
+				common &= sc;
+				union |= sc;
+			}
+		}
+		if (common == 0)
+		{
+			addVc(x, y, union);
+		}
+	}
+
+	// Adds a carrier to a pair's list, unless one of its subsets is there
+	// already; drops any of its supersets, and when the list is full,
+	// replaces the largest carrier if the new one is smaller.  Returns
+	// where it was put, or -1 if it was not added.
+	private int add(long[] carriers, int[] counts, int pair, long carrier)
+	{
+		int base = pair * MAX_CARRIERS;
+		int count = counts[pair];
+		for (int i = 0; i < count; i++)
+		{
+			long existing = carriers[base + i];
+			if ((existing & carrier) == existing)
+			{
+				return -1;
+			}
+		}
+
+		int kept = 0;
+		for (int i = 0; i < count; i++)
+		{
+			long existing = carriers[base + i];
+			if ((existing & carrier) != carrier)
+			{
+				if (carriers == vcs)
+				{
+					vcRounds[base + kept] = vcRounds[base + i];
+				}
+				carriers[base + kept++] = existing;
+			}
+		}
+
+		if (kept < MAX_CARRIERS)
+		{
+			carriers[base + kept] = carrier;
+			counts[pair] = kept + 1;
+			return kept;
+		}
+
+		int largest = 0;
+		for (int i = 1; i < kept; i++)
+		{
+			if (Long.bitCount(carriers[base + i]) > Long.bitCount(carriers[base + largest]))
+			{
+				largest = i;
+			}
+		}
+		counts[pair] = kept;
+		if (Long.bitCount(carrier) < Long.bitCount(carriers[base + largest]))
+		{
+			carriers[base + largest] = carrier;
+			return largest;
+		}
+		return -1;
+	}
+}